@@ -30,6 +30,21 @@ public class KafkaClientOptionsConverter {
             obj.setConfig(map);
           }
           break;
+        case "consumerPoolName":
+          if (member.getValue() instanceof String) {
+            obj.setConsumerPoolName((String)member.getValue());
+          }
+          break;
+        case "consumerPoolSize":
+          if (member.getValue() instanceof Number) {
+            obj.setConsumerPoolSize(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "nonBlockingSend":
+          if (member.getValue() instanceof Boolean) {
+            obj.setNonBlockingSend((Boolean)member.getValue());
+          }
+          break;
         case "tracePeerAddress":
           if (member.getValue() instanceof String) {
             obj.setTracePeerAddress((String)member.getValue());
@@ -40,6 +55,11 @@ public class KafkaClientOptionsConverter {
             obj.setTracingPolicy(io.vertx.core.tracing.TracingPolicy.valueOf((String)member.getValue()));
           }
           break;
+        case "useVirtualThreads":
+          if (member.getValue() instanceof Boolean) {
+            obj.setUseVirtualThreads((Boolean)member.getValue());
+          }
+          break;
       }
     }
   }
@@ -54,11 +74,17 @@ public class KafkaClientOptionsConverter {
       obj.getConfig().forEach((key, value) -> map.put(key, value));
       json.put("config", map);
     }
+    if (obj.getConsumerPoolName() != null) {
+      json.put("consumerPoolName", obj.getConsumerPoolName());
+    }
+    json.put("consumerPoolSize", obj.getConsumerPoolSize());
+    json.put("nonBlockingSend", obj.isNonBlockingSend());
     if (obj.getTracePeerAddress() != null) {
       json.put("tracePeerAddress", obj.getTracePeerAddress());
     }
     if (obj.getTracingPolicy() != null) {
       json.put("tracingPolicy", obj.getTracingPolicy().name());
     }
+    json.put("useVirtualThreads", obj.isUseVirtualThreads());
   }
 }
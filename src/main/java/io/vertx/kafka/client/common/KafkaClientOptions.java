@@ -41,9 +41,33 @@ public class KafkaClientOptions {
    */
   public static final TracingPolicy DEFAULT_TRACING_POLICY = TracingPolicy.PROPAGATE;
 
+  /**
+   * Default non-blocking send is disabled, every record is handed to the producer from a worker thread
+   */
+  public static final boolean DEFAULT_NON_BLOCKING_SEND = false;
+
+  /**
+   * Default consumer pool size is 0, every consumer runs on its own thread
+   */
+  public static final int DEFAULT_CONSUMER_POOL_SIZE = 0;
+
+  /**
+   * Default consumer pool name is 'vert.x-kafka-consumer-pool'
+   */
+  public static final String DEFAULT_CONSUMER_POOL_NAME = "vert.x-kafka-consumer-pool";
+
+  /**
+   * Default use of virtual threads is disabled
+   */
+  public static final boolean DEFAULT_USE_VIRTUAL_THREADS = false;
+
   private Map<String, Object> config;
   private String tracePeerAddress = DEFAULT_TRACE_PEER_ADDRESS;
   private TracingPolicy tracingPolicy = DEFAULT_TRACING_POLICY;
+  private boolean nonBlockingSend = DEFAULT_NON_BLOCKING_SEND;
+  private int consumerPoolSize = DEFAULT_CONSUMER_POOL_SIZE;
+  private String consumerPoolName = DEFAULT_CONSUMER_POOL_NAME;
+  private boolean useVirtualThreads = DEFAULT_USE_VIRTUAL_THREADS;
 
   public KafkaClientOptions() {
   }
@@ -144,6 +168,107 @@ public class KafkaClientOptions {
     return this;
   }
 
+  /**
+   * @return whether records are handed to the producer directly from the calling thread when possible
+   */
+  public boolean isNonBlockingSend() {
+    return nonBlockingSend;
+  }
+
+  /**
+   * Set whether a producer hands records to the Kafka producer directly from the calling thread (e.g. the event loop)
+   * instead of using a worker thread for each record.
+   * <p>
+   * A record is only sent directly when the metadata of its topic is known to be cached by the producer and no
+   * previous call of the same stream (a record, a flush, a transaction operation...) is still waiting for a worker
+   * thread, so the ordering of the records and of the calls is preserved.
+   * Otherwise the record is sent from a worker thread, since the Kafka producer might block up to {@code max.block.ms}
+   * while fetching the topic metadata. A topic is considered cached for half of {@code metadata.max.idle.ms} after
+   * its last successful send, and records are also sent from a worker thread while the records not yet acknowledged
+   * use more than half of {@code buffer.memory}, both values are read from the {@link #getConfig() config}.
+   * <p>
+   * This only applies to producers.
+   *
+   * @param nonBlockingSend {@code true} to enable the non-blocking send path
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setNonBlockingSend(boolean nonBlockingSend) {
+    this.nonBlockingSend = nonBlockingSend;
+    return this;
+  }
+
+  /**
+   * @return the number of threads of the pool shared by consumers, {@code 0} when every consumer has its own thread
+   */
+  public int getConsumerPoolSize() {
+    return consumerPoolSize;
+  }
+
+  /**
+   * Set the number of threads of a pool shared by the consumers created with the same pool name, instead of
+   * running every consumer on its own thread.
+   * <p>
+   * Each consumer is still accessed by a single thread at a time, its tasks run in order on the pool. A consumer
+   * of the pool does not hold a pool thread while waiting for records: it polls without blocking and polls again
+   * after a short delay, bounded by its {@link io.vertx.kafka.client.consumer.KafkaReadStream#pollTimeout poll timeout},
+   * so the commits and seeks of the consumers sharing the pool are not delayed by the polls of the others.
+   * <p>
+   * This only applies to consumers.
+   *
+   * @param consumerPoolSize the pool size, {@code 0} to run every consumer on its own thread
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setConsumerPoolSize(int consumerPoolSize) {
+    if (consumerPoolSize < 0) {
+      throw new IllegalArgumentException("consumerPoolSize must be >= 0");
+    }
+    this.consumerPoolSize = consumerPoolSize;
+    return this;
+  }
+
+  /**
+   * @return the name of the pool shared by consumers
+   */
+  public String getConsumerPoolName() {
+    return consumerPoolName;
+  }
+
+  /**
+   * Set the name of the pool shared by consumers, consumers of the same Vert.x instance configured with the same
+   * name share the same pool. The pool is created by the first consumer with its {@link #setConsumerPoolSize size}
+   * and closed with the last consumer using it.
+   *
+   * @param consumerPoolName the pool name
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setConsumerPoolName(String consumerPoolName) {
+    this.consumerPoolName = consumerPoolName;
+    return this;
+  }
+
+  /**
+   * @return whether the blocking calls to the Kafka client run on virtual threads
+   */
+  public boolean isUseVirtualThreads() {
+    return useVirtualThreads;
+  }
+
+  /**
+   * Set whether the blocking calls to the Kafka client (poll, commits, send, flush, transactions, close...) run on
+   * virtual threads instead of a dedicated consumer thread or the Vert.x worker pool. The calls of a client are
+   * still executed one at a time and in order.
+   * <p>
+   * This requires JDK 21 or later, creating a client fails with an {@link IllegalStateException} otherwise. For
+   * consumers it takes precedence over the {@link #setConsumerPoolSize consumer pool}.
+   *
+   * @param useVirtualThreads {@code true} to run the blocking calls on virtual threads
+   * @return a reference to this, so the API can be used fluently
+   */
+  public KafkaClientOptions setUseVirtualThreads(boolean useVirtualThreads) {
+    this.useVirtualThreads = useVirtualThreads;
+    return this;
+  }
+
   public JsonObject toJson() {
     return new JsonObject(config);
   }
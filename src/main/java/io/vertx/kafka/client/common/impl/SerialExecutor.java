@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.common.impl;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * An executor running its tasks one at a time and in submission order on a shared executor, so a Kafka client
+ * is never accessed by two threads at the same time.
+ * <p>
+ * Each task is handed to the shared executor on its own, lanes sharing the same executor are served fairly.
+ */
+public class SerialExecutor implements Executor {
+
+  private final Executor executor;
+  private final ArrayDeque<Runnable> tasks = new ArrayDeque<>(); // Guarded by this
+  private boolean running; // Guarded by this
+
+  public SerialExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    synchronized (this) {
+      tasks.add(task);
+      if (running) {
+        return;
+      }
+      running = true;
+    }
+    schedule();
+  }
+
+  private void schedule() {
+    try {
+      executor.execute(this::runNext);
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        tasks.clear();
+        running = false;
+      }
+      throw e;
+    }
+  }
+
+  private void runNext() {
+    Runnable task;
+    synchronized (this) {
+      task = tasks.poll();
+    }
+    try {
+      task.run();
+    } finally {
+      boolean more;
+      synchronized (this) {
+        more = !tasks.isEmpty();
+        running = more;
+      }
+      if (more) {
+        schedule();
+      }
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.common.impl;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads, looked up by reflection since the client is built for JDKs without them.
+ */
+public class VirtualThreads {
+
+  private static volatile Executor executor;
+
+  /**
+   * @return whether the running JDK supports virtual threads
+   */
+  public static boolean isSupported() {
+    try {
+      Thread.class.getMethod("ofVirtual");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  /**
+   * @return an executor starting a new virtual thread for each task, shared by all the clients
+   * @throws IllegalStateException when the running JDK does not support virtual threads
+   */
+  public static Executor executor() {
+    Executor result = executor;
+    if (result == null) {
+      synchronized (VirtualThreads.class) {
+        result = executor;
+        if (result == null) {
+          result = createExecutor();
+          executor = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  private static Executor createExecutor() {
+    if (!isSupported()) {
+      throw new IllegalStateException("Virtual threads require JDK 21 or later");
+    }
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "vert.x-kafka-virtual-thread-", 0L);
+      ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+      return (Executor) newThreadPerTaskExecutor.invoke(null, factory);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Virtual threads are not available", e);
+    }
+  }
+}
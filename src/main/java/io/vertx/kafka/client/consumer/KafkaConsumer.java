@@ -28,6 +28,7 @@ import io.vertx.kafka.client.common.PartitionInfo;
 import io.vertx.kafka.client.common.TopicPartition;
 import io.vertx.kafka.client.consumer.impl.KafkaConsumerImpl;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.common.serialization.Deserializer;
 
 import java.time.Duration;
@@ -36,6 +37,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 /**
@@ -65,6 +67,20 @@ public interface KafkaConsumer<K, V> extends ReadStream<KafkaConsumerRecord<K, V
     return new KafkaConsumerImpl<>(stream);
   }
 
+  /**
+   * Create a new KafkaConsumer instance from a native {@link Consumer}.
+   *
+   * @param vertx Vert.x instance to use
+   * @param consumer the Kafka consumer to wrap
+   * @param options  Kafka consumer options, the Kafka config of the options is ignored
+   * @return  an instance of the KafkaConsumer
+   */
+  @GenIgnore
+  static <K, V> KafkaConsumer<K, V> create(Vertx vertx, Consumer<K, V> consumer, KafkaClientOptions options) {
+    KafkaReadStream<K, V> stream = KafkaReadStream.create(vertx, consumer, options);
+    return new KafkaConsumerImpl<>(stream);
+  }
+
   /**
    * Create a new KafkaConsumer instance
    *
@@ -204,6 +220,19 @@ public interface KafkaConsumer<K, V> extends ReadStream<KafkaConsumerRecord<K, V
   @Override
   KafkaConsumer<K, V> handler(Handler<KafkaConsumerRecord<K, V>> handler);
 
+  /**
+   * Reuse a single record instance for all the records given to the {@link #handler(Handler) handler}, instead of
+   * allocating one per record. The record is only valid during the handler call and must not be kept, its headers
+   * are a view over the headers of the Kafka record and their values are not copied.
+   * <p>
+   * This must be set before the handler.
+   *
+   * @param enabled whether records are reused
+   * @return current KafkaConsumer instance
+   */
+  @Fluent
+  KafkaConsumer<K, V> flyweightRecords(boolean enabled);
+
   @Fluent
   @Override
   KafkaConsumer<K, V> pause();
@@ -527,6 +556,112 @@ public interface KafkaConsumer<K, V> extends ReadStream<KafkaConsumerRecord<K, V
   @GenIgnore
   Future<Map<TopicPartition, OffsetAndMetadata>> commit(Map<TopicPartition, OffsetAndMetadata> offsets);
 
+  /**
+   * Commit current offsets for all the subscribed list of topics and partition, without blocking the consumer
+   * thread for the broker round-trip.
+   *
+   * @see KafkaReadStream#commitAsync()
+   */
+  Future<Void> commitAsync();
+
+  /**
+   * Commit the specified offsets for the specified list of topics and partitions to Kafka, without blocking the
+   * consumer thread for the broker round-trip.
+   *
+   * @param offsets offsets list to commit
+   * @see KafkaReadStream#commitAsync(Map)
+   */
+  @GenIgnore
+  Future<Map<TopicPartition, OffsetAndMetadata>> commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets);
+
+  /**
+   * Enables the offset committer: records acknowledged with {@link #ack(KafkaConsumerRecord)} are committed in the
+   * background, every {@code interval} and whenever {@code ackThreshold} records have been acknowledged since the
+   * last commit.
+   *
+   * @param interval the commit interval, zero to only commit on the threshold
+   * @param ackThreshold the number of acknowledged records triggering a commit, zero to only commit on the interval
+   * @return current KafkaConsumer instance
+   * @see KafkaReadStream#offsetCommitter(Duration, int)
+   */
+  @Fluent
+  @GenIgnore(GenIgnore.PERMITTED_TYPE)
+  KafkaConsumer<K, V> offsetCommitter(Duration interval, int ackThreshold);
+
+  /**
+   * Get the stream of the records of a partition, with its own demand. When a partition stream is paused its
+   * partition is paused on the consumer while the other partitions keep flowing.
+   *
+   * @param topicPartition the topic partition
+   * @return the stream of the records of the partition
+   * @see KafkaReadStream#partitionStream(org.apache.kafka.common.TopicPartition)
+   */
+  ReadStream<KafkaConsumerRecord<K, V>> partitionStream(TopicPartition topicPartition);
+
+  /**
+   * Allows the records of a partition to be acknowledged in any order, at most {@code maxInFlight} records per
+   * partition are delivered and not acknowledged before the partition is paused.
+   *
+   * @param maxInFlight the maximum number of records in flight per partition, zero to acknowledge records in order
+   * @return current KafkaConsumer instance
+   * @see KafkaReadStream#ackWindow(int)
+   */
+  @Fluent
+  KafkaConsumer<K, V> ackWindow(int maxInFlight);
+
+  /**
+   * Set a handler processing the records concurrently on {@code lanes} event loop contexts while preserving the
+   * order of the records of a key, records are acknowledged once the returned future succeeds. A failed record is
+   * reported to the exception handler and closes the consumer.
+   *
+   * @param lanes the number of lanes
+   * @param maxQueuedPerLane the maximum number of records waiting in a lane
+   * @param handler the record processor
+   * @return current KafkaConsumer instance
+   * @see KafkaReadStream#parallelHandler(int, int, Function)
+   */
+  @Fluent
+  KafkaConsumer<K, V> parallelHandler(int lanes, int maxQueuedPerLane, Function<KafkaConsumerRecord<K, V>, Future<Void>> handler);
+
+  /**
+   * Like {@link #parallelHandler(int, int, Function)}, when {@code skipFailed} is {@code true} failed records are
+   * reported then acknowledged instead of closing the consumer.
+   *
+   * @param lanes the number of lanes
+   * @param maxQueuedPerLane the maximum number of records waiting in a lane
+   * @param skipFailed whether failed records are acknowledged
+   * @param handler the record processor
+   * @return current KafkaConsumer instance
+   * @see KafkaReadStream#parallelHandler(int, int, boolean, Function)
+   */
+  @Fluent
+  KafkaConsumer<K, V> parallelHandler(int lanes, int maxQueuedPerLane, boolean skipFailed, Function<KafkaConsumerRecord<K, V>, Future<Void>> handler);
+
+  /**
+   * Acknowledge a record once it has been processed, its offset is then committed by the offset committer.
+   *
+   * @param record the processed record
+   * @see KafkaReadStream#ack(ConsumerRecord)
+   */
+  void ack(KafkaConsumerRecord<K, V> record);
+
+  /**
+   * @return the number of records acknowledged and not yet committed by the offset committer
+   */
+  long commitLag();
+
+  /**
+   * @return the number of polls that returned no records, polls without records do not wake up the event loop
+   */
+  long emptyPolls();
+
+  /**
+   * @return the number of times the event loop found the fetched records exhausted and asked the worker for more,
+   * once per batch while records flow. Polls returning no records are counted by {@link #emptyPolls()} and do not
+   * wake up the event loop
+   */
+  long refills();
+
   /**
    * Get the last committed offset for the given partition (whether the commit happened by this process or another).
    *
@@ -567,6 +702,15 @@ public interface KafkaConsumer<K, V> extends ReadStream<KafkaConsumerRecord<K, V
    */
   Future<Long> position(TopicPartition partition);
 
+  /**
+   * Get the group metadata of the consumer, to be sent with the offsets committed by a transactional producer.
+   *
+   * @return a future notified on operation completed
+   * @see io.vertx.kafka.client.producer.KafkaProducer#sendOffsetsToTransaction(Map, ConsumerGroupMetadata)
+   */
+  @GenIgnore
+  Future<ConsumerGroupMetadata> groupMetadata();
+
   /**
    * Look up the offsets for the given partitions by timestamp. Note: the result might be empty in case
    * for the given timestamp no offset can be found -- e.g., when the timestamp refers to the future
@@ -643,6 +787,50 @@ public interface KafkaConsumer<K, V> extends ReadStream<KafkaConsumerRecord<K, V
   @GenIgnore(GenIgnore.PERMITTED_TYPE)
   KafkaConsumer<K, V> pollTimeout(Duration timeout);
 
+  /**
+   * Sets the maximum number of records delivered to the handler in a single event loop turn before the consumer
+   * yields to other tasks of the context. Defaults to 10.
+   *
+   * @param max the maximum number of records per turn, must be positive
+   * @return current KafkaConsumer instance
+   */
+  @Fluent
+  KafkaConsumer<K, V> maxRecordsPerTick(int max);
+
+  /**
+   * Sets the maximum time spent delivering records to the handler in a single event loop turn before the consumer
+   * yields to other tasks of the context. Defaults to 0 which disables the time budget.
+   *
+   * @param budget the time budget per turn, zero to disable it, must not be negative
+   * @return current KafkaConsumer instance
+   * @see KafkaReadStream#maxTimePerTick(Duration)
+   */
+  @Fluent
+  @GenIgnore(GenIgnore.PERMITTED_TYPE)
+  KafkaConsumer<K, V> maxTimePerTick(Duration budget);
+
+  /**
+   * Enables prefetching: the next batches are polled while the current one is delivered to the handler, up to
+   * {@code max} buffered records. Defaults to 0 which disables prefetching. Prefetching requires
+   * {@code enable.auto.commit=false}, {@link #commit()} then only commits the offsets of the delivered records.
+   *
+   * @param max the maximum number of records buffered ahead of the handler, zero to disable prefetching
+   * @return current KafkaConsumer instance
+   * @see KafkaReadStream#prefetchRecords(int)
+   */
+  @Fluent
+  KafkaConsumer<K, V> prefetchRecords(int max);
+
+  /**
+   * Sets whether each record is delivered on its own duplicated context. Defaults to {@code false}.
+   *
+   * @param localContextPerRecord whether each record gets its own local context
+   * @return current KafkaConsumer instance
+   * @see KafkaReadStream#localContextPerRecord(boolean)
+   */
+  @Fluent
+  KafkaConsumer<K, V> localContextPerRecord(boolean localContextPerRecord);
+
   /**
    * Executes a poll for getting messages from Kafka.
    *
@@ -17,6 +17,7 @@
 package io.vertx.kafka.client.consumer;
 
 import io.vertx.codegen.annotations.GenIgnore;
+import io.vertx.codegen.annotations.Nullable;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.kafka.client.producer.KafkaHeader;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -65,6 +66,14 @@ public interface KafkaConsumerRecord<K, V> {
    */
   V value();
 
+  /**
+   * Get the last header with the given key, its value is a view over the bytes of the record header.
+   *
+   * @param key the header key
+   * @return the last header with the key, or {@code null} when there is none
+   */
+  @Nullable KafkaHeader lastHeader(String key);
+
   /**
    * @return the list of consumer record headers
    */
@@ -19,6 +19,11 @@ import org.apache.kafka.clients.consumer.ConsumerRecords;
 
 import io.vertx.codegen.annotations.GenIgnore;
 import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.Handler;
+import io.vertx.kafka.client.common.TopicPartition;
+
+import java.util.List;
+import java.util.Set;
 
 /**
  * Vert.x Kafka consumer records
@@ -39,6 +44,40 @@ public interface KafkaConsumerRecords<K, V> {
    * @throws IndexOutOfBoundsException if index <0 or index>={@link #size()}
    */
   KafkaConsumerRecord<K, V> recordAt(int index);
+
+  /**
+   * Iterate over the records of this batch without allocating a record per element: the handler is given the same
+   * record instance for each element, it is only valid during the call and must not be kept.
+   *
+   * @param handler the handler called for each record
+   */
+  void forEach(Handler<KafkaConsumerRecord<K, V>> handler);
+
+  /**
+   * @return the partitions of the records of this batch
+   */
+  Set<TopicPartition> partitions();
+
+  /**
+   * Get the records of a partition, the records are wrapped when they are read.
+   *
+   * @param topicPartition the topic partition
+   * @return the records of the partition, in offset order
+   */
+  @GenIgnore
+  List<KafkaConsumerRecord<K, V>> records(TopicPartition topicPartition);
+
+  /**
+   * @param topicPartition the topic partition
+   * @return the offset of the first record of the partition in this batch, or {@code -1} when there is none
+   */
+  long firstOffset(TopicPartition topicPartition);
+
+  /**
+   * @param topicPartition the topic partition
+   * @return the offset of the last record of the partition in this batch, or {@code -1} when there is none
+   */
+  long lastOffset(TopicPartition topicPartition);
   
   /**
    * @return  the native Kafka consumer records with backed information
@@ -25,6 +25,7 @@ import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.consumer.impl.KafkaReadStreamImpl;
 import io.vertx.kafka.client.serialization.VertxSerdes;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
@@ -39,6 +40,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 /**
@@ -233,6 +236,18 @@ public interface KafkaReadStream<K, V> extends ReadStream<ConsumerRecord<K, V>>
     return new KafkaReadStreamImpl<>(vertx, consumer, new KafkaClientOptions());
   }
 
+  /**
+   * Create a new KafkaReadStream instance
+   *
+   * @param vertx Vert.x instance to use
+   * @param consumer  native Kafka consumer instance
+   * @param options  Kafka consumer options, the Kafka config of the options is ignored
+   * @return an instance of the KafkaReadStream
+   */
+  static <K, V> KafkaReadStream<K, V> create(Vertx vertx, Consumer<K, V> consumer, KafkaClientOptions options) {
+    return new KafkaReadStreamImpl<>(vertx, consumer, options);
+  }
+
   /**
    * Get the last committed offset for the given partition (whether the commit happened by this process or another).
    *
@@ -438,6 +453,139 @@ public interface KafkaReadStream<K, V> extends ReadStream<ConsumerRecord<K, V>>
    */
   Future<Map<TopicPartition, OffsetAndMetadata>> commit(Map<TopicPartition, OffsetAndMetadata> offsets);
 
+  /**
+   * Commit the offsets of the records returned by the last poll for all the subscribed list of topics and partitions,
+   * without blocking the consumer thread for the broker round-trip.
+   * <p>
+   * Commit requests made before the consumer thread gets to them are coalesced into a single commit.
+   *
+   * @return a {@code Future} completed with the committed offsets
+   */
+  Future<Map<TopicPartition, OffsetAndMetadata>> commitAsync();
+
+  /**
+   * Commit the specified offsets for the specified list of topics and partitions to Kafka, without blocking the
+   * consumer thread for the broker round-trip.
+   * <p>
+   * Commit requests made before the consumer thread gets to them are coalesced into a single commit of the
+   * highest offset requested for each partition.
+   *
+   * @param offsets offsets list to commit
+   * @return a {@code Future} completed with the committed offsets, which can include offsets of coalesced requests
+   */
+  Future<Map<TopicPartition, OffsetAndMetadata>> commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets);
+
+  /**
+   * Enables the offset committer: records acknowledged with {@link #ack(ConsumerRecord)} are committed in the
+   * background, every {@code interval} and whenever {@code ackThreshold} records have been acknowledged since the
+   * last commit. The acknowledged offsets of a partition are also committed when the partition is revoked and when
+   * the stream is closed.
+   * <p>
+   * This is meant to be used with {@code enable.auto.commit} set to {@code false}.
+   *
+   * @param interval the commit interval, zero to only commit on the threshold
+   * @param ackThreshold the number of acknowledged records triggering a commit, zero to only commit on the interval
+   * @return current KafkaReadStream instance.
+   */
+  KafkaReadStream<K, V> offsetCommitter(Duration interval, int ackThreshold);
+
+  /**
+   * Get the stream of the records of a partition. Each partition stream has its own demand: when a partition stream
+   * is paused, or has no handler, its partition is paused on the consumer while the other partitions keep flowing,
+   * the partition is resumed once the stream asks for records again.
+   * <p>
+   * Once a partition stream has been requested, the records of all the partitions are delivered to their partition
+   * streams instead of the {@link #handler(Handler) handler} of this stream. A partition stream ends when its
+   * partition is revoked, a new stream is created when the partition is assigned again, and all the partition
+   * streams end when this stream is closed. The errors of the consumer are reported to the exception handler of each
+   * partition stream as well.
+   *
+   * @param topicPartition the topic partition
+   * @return the stream of the records of the partition
+   * @throws IllegalStateException when a {@link #handler(Handler) handler} is already set
+   */
+  ReadStream<ConsumerRecord<K, V>> partitionStream(TopicPartition topicPartition);
+
+  /**
+   * Allows the records of a partition to be acknowledged in any order, for instance when they are processed
+   * concurrently. The committed offset of a partition only moves past a record once this record and all the previous
+   * records of the partition have been acknowledged.
+   * <p>
+   * At most {@code maxInFlight} records per partition are delivered and not acknowledged: when the window of a
+   * partition is full the partition is {@link #pause(Set) paused}, it is resumed once half of the window has been
+   * acknowledged. Records already fetched for a paused partition are still delivered.
+   * <p>
+   * The offsets of a partition need not be consecutive, as with compacted or transactional topics. Seeking a partition
+   * drops the records delivered before the seek from its window, their acknowledgements are ignored.
+   *
+   * @param maxInFlight the maximum number of records in flight per partition, zero to acknowledge records in order
+   * @return current KafkaReadStream instance.
+   */
+  KafkaReadStream<K, V> ackWindow(int maxInFlight);
+
+  /**
+   * Set a handler processing the records concurrently on {@code lanes} event loop contexts, for instance when a
+   * consumer has fewer partitions than cores.
+   * <p>
+   * Records with the same key, or without key from the same partition, go to the same lane and a lane processes
+   * one record at a time after the future returned by the previous record completes, so the order of the records of
+   * a key is preserved. No record is dispatched while a lane has {@code maxQueuedPerLane} records waiting, this does
+   * not change the {@link #demand() demand} of the stream.
+   * <p>
+   * Records are {@link #ack(ConsumerRecord) acknowledged} once processed, the {@link #ackWindow(int) ack window} is
+   * enabled when it is not already, so the {@link #offsetCommitter(Duration, int) offset committer} only commits
+   * fully processed records. A record whose future fails is reported to the exception handler and the stream is
+   * {@link #close() closed}: the record is not acknowledged, so the committed offset of its partition does not move
+   * past it, and the records queued behind it in its lane are dropped. The records processed by the other lanes are
+   * committed on close, the failed record is consumed again by the next owner of its partition.
+   *
+   * @param lanes the number of lanes
+   * @param maxQueuedPerLane the maximum number of records waiting in a lane
+   * @param handler the record processor
+   * @return current KafkaReadStream instance.
+   */
+  KafkaReadStream<K, V> parallelHandler(int lanes, int maxQueuedPerLane, Function<ConsumerRecord<K, V>, Future<Void>> handler);
+
+  /**
+   * Like {@link #parallelHandler(int, int, Function)}, when {@code skipFailed} is {@code true} a record whose future
+   * fails is reported to the exception handler then acknowledged as if it had been processed, and its lane goes on.
+   *
+   * @param lanes the number of lanes
+   * @param maxQueuedPerLane the maximum number of records waiting in a lane
+   * @param skipFailed whether failed records are acknowledged
+   * @param handler the record processor
+   * @return current KafkaReadStream instance.
+   */
+  KafkaReadStream<K, V> parallelHandler(int lanes, int maxQueuedPerLane, boolean skipFailed, Function<ConsumerRecord<K, V>, Future<Void>> handler);
+
+  /**
+   * Acknowledge a record once it has been processed, its offset is then committed by the offset committer. Unless
+   * an {@link #ackWindow(int) ack window} is used, the records of a partition must be acknowledged in offset order,
+   * acknowledging a record acknowledges the previous records of its partition. The acknowledgement of a record
+   * whose partition has been revoked is ignored.
+   *
+   * @param record the processed record
+   * @throws IllegalStateException when the {@link #offsetCommitter(Duration, int) offset committer} is not enabled
+   */
+  void ack(ConsumerRecord<K, V> record);
+
+  /**
+   * @return the number of records acknowledged and not yet committed by the offset committer
+   */
+  long commitLag();
+
+  /**
+   * @return the number of polls that returned no records, polls without records do not wake up the event loop
+   */
+  long emptyPolls();
+
+  /**
+   * @return the number of times the event loop found the fetched records exhausted and asked the worker for more,
+   * once per batch while records flow. Polls returning no records are counted by {@link #emptyPolls()} and do not
+   * wake up the event loop
+   */
+  long refills();
+
   /**
    * Get metadata about the partitions for a given topic.
    *
@@ -461,6 +609,14 @@ public interface KafkaReadStream<K, V> extends ReadStream<ConsumerRecord<K, V>>
    */
   Future<Long> position(TopicPartition partition);
 
+  /**
+   * Get the group metadata of the consumer, to be sent with the offsets committed by a transactional producer.
+   *
+   * @return a future notified on operation completed
+   * @see io.vertx.kafka.client.producer.KafkaWriteStream#sendOffsetsToTransaction(Map, ConsumerGroupMetadata)
+   */
+  Future<ConsumerGroupMetadata> groupMetadata();
+
   /**
    * Look up the offsets for the given partitions by timestamp.
    * @param topicPartitionTimestamps A map with pairs of (TopicPartition, Timestamp).
@@ -534,6 +690,88 @@ public interface KafkaReadStream<K, V> extends ReadStream<ConsumerRecord<K, V>>
    */
   KafkaReadStream<K, V> pollTimeout(Duration timeout);
 
+  /**
+   * Sets the maximum number of records delivered to the handler in a single event loop turn before the stream
+   * yields to other tasks of the context. Defaults to 10.
+   * <p>
+   * A higher value drains a poll in fewer context tasks, a lower value lets other tasks of the verticle run more often.
+   *
+   * @param max the maximum number of records per turn, must be positive
+   * @return current KafkaReadStream instance.
+   */
+  KafkaReadStream<K, V> maxRecordsPerTick(int max);
+
+  /**
+   * Sets the maximum time spent delivering records to the handler in a single event loop turn before the stream
+   * yields to other tasks of the context. Defaults to 0 which disables the time budget.
+   * <p>
+   * When set, a turn ends as soon as either this budget or {@link #maxRecordsPerTick(int)} is reached, so a high
+   * records per turn limit combined with a small budget (e.g 200 microseconds) sizes each turn on the actual cost
+   * of the handler.
+   *
+   * @param budget the time budget per turn, zero to disable it, must not be negative
+   * @return current KafkaReadStream instance.
+   */
+  KafkaReadStream<K, V> maxTimePerTick(Duration budget);
+
+  /**
+   * Enables prefetching: the next batches are polled while the current one is delivered to the handler, up to
+   * {@code max} buffered records. Defaults to 0 which disables prefetching, a batch is then only polled once
+   * the previous one has been delivered.
+   * <p>
+   * No batch is polled while the stream is paused. Seeking discards the buffered batches, the partitions they
+   * belong to are rewound so their records are fetched again, and so does the revocation of partitions.
+   * <p>
+   * The buffered records move the position of the consumer without being delivered, so {@link #commit()} and
+   * {@link #commitAsync()} commit the offsets of the first records not yet handed to the handler instead of the
+   * positions. The Kafka consumer cannot do the same, so prefetching requires {@code enable.auto.commit=false}.
+   *
+   * @param max the maximum number of records buffered ahead of the handler, zero to disable prefetching
+   * @return current KafkaReadStream instance.
+   * @throws IllegalStateException when the stream is configured with {@code enable.auto.commit=true}, which is the
+   *         Kafka default
+   */
+  KafkaReadStream<K, V> prefetchRecords(int max);
+
+  /**
+   * Sets whether each record is delivered on its own duplicated context, giving the handler a local context
+   * (e.g {@link io.vertx.core.Context#putLocal}) scoped to the record. Defaults to {@code false}, records are then
+   * delivered on the stream context without allocating anything per record.
+   * <p>
+   * Records are always delivered on a duplicated context when tracing is enabled.
+   *
+   * @param localContextPerRecord whether each record gets its own local context
+   * @return current KafkaReadStream instance.
+   */
+  KafkaReadStream<K, V> localContextPerRecord(boolean localContextPerRecord);
+
+  /**
+   * Adapt this stream to a reactive streams {@link Flow.Publisher}: the stream handlers are set by the publisher
+   * and {@code request(n)} fetches {@code n} records from the stream, so the publisher does not buffer records.
+   * Cancelling the subscription pauses the stream and removes the handlers, the stream is not closed.
+   * Only terminal stream failures are signalled with {@code onError}, on the stream context; retriable
+   * failures are left to the stream which keeps polling.
+   * <p>
+   * The publisher accepts a single subscriber.
+   *
+   * @return the publisher of the records of this stream
+   */
+  Flow.Publisher<ConsumerRecord<K, V>> toPublisher();
+
+  /**
+   * Adapt this stream to a reactive streams {@link Flow.Publisher} of batches: the stream handlers are set by the
+   * publisher, batches are signalled by the {@link #batchHandler(Handler) batch handler} and the stream is paused
+   * while the subscription has no demand, so batches are only fetched when requested. Empty polls are not
+   * signalled. Cancelling the subscription pauses the stream and removes the handlers, the stream is not closed.
+   * Only terminal stream failures are signalled with {@code onError}, on the stream context.
+   * <p>
+   * The publisher accepts a single subscriber.
+   *
+   * @param pollTimeout the timeout of each poll
+   * @return the publisher of the batches of this stream
+   */
+  Flow.Publisher<ConsumerRecords<K, V>> toBatchPublisher(Duration pollTimeout);
+
   /**
    * Executes a poll for getting messages from Kafka.
    *
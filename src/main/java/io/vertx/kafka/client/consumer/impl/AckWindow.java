@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+/**
+ * The records of a partition delivered and not yet acknowledged, acknowledgements can arrive in any order.
+ * <p>
+ * The delivered offsets are kept in delivery order in a ring with a bitset of the acknowledged ones. Offsets only need
+ * to increase, gaps left by compaction or transaction markers are normal and an acknowledgement looks its offset up by
+ * binary search, the next offset to commit is never past a delivered record that is not acknowledged.
+ * The window asks for the partition to be paused when it is full and resumed once half of it has been acknowledged.
+ * Records already fetched are still delivered while the partition is paused, the ring grows to hold them.
+ */
+class AckWindow {
+
+  static final int NONE = 0;
+  static final int PAUSE = 1;
+  static final int RESUME = 2;
+
+  private final int capacity;
+  private long[] offsets;
+  private long[] acked;
+  private int head; // The index of the oldest record not acknowledged
+  private int size;
+  private long last = -1L; // The last delivered offset
+  private boolean paused;
+
+  AckWindow(int capacity) {
+    int len = 1;
+    while (len < capacity) {
+      len <<= 1;
+    }
+    this.capacity = capacity;
+    this.offsets = new long[len];
+    this.acked = new long[(len + 63) >> 6];
+  }
+
+  /**
+   * @return whether the record at {@code offset} can be delivered in this window, i.e. it is after the last delivered one
+   */
+  synchronized boolean accepts(long offset) {
+    return offset > last;
+  }
+
+  /**
+   * Record the delivery of a record {@link #accepts(long) accepted} by the window.
+   *
+   * @return {@link #PAUSE} when the window is full, otherwise {@link #NONE}
+   */
+  synchronized int deliver(long offset) {
+    int action = NONE;
+    last = offset;
+    if (size == offsets.length) {
+      grow();
+    }
+    int index = (head + size) & (offsets.length - 1);
+    offsets[index] = offset;
+    acked[index >> 6] &= ~(1L << index);
+    size++;
+    if (!paused && size >= capacity) {
+      paused = true;
+      action = PAUSE;
+    }
+    return action;
+  }
+
+  /**
+   * Acknowledge a delivered record.
+   *
+   * @return the next offset to commit when the acknowledgement moved it, otherwise {@code -1}
+   */
+  synchronized long ack(long offset) {
+    int index = indexOf(offset);
+    if (index < 0) {
+      return -1L;
+    }
+    acked[index >> 6] |= 1L << index;
+    if (index != head) {
+      return -1L;
+    }
+    int mask = offsets.length - 1;
+    while (size > 0 && (acked[head >> 6] & (1L << head)) != 0L) {
+      acked[head >> 6] &= ~(1L << head);
+      head = (head + 1) & mask;
+      size--;
+    }
+    return size == 0 ? last + 1 : offsets[head];
+  }
+
+  /**
+   * @return whether the partition paused by this window should be resumed
+   */
+  synchronized boolean resume() {
+    if (paused && size <= capacity / 2) {
+      paused = false;
+      return true;
+    }
+    return false;
+  }
+
+  synchronized boolean paused() {
+    return paused;
+  }
+
+  synchronized int inFlight() {
+    return size;
+  }
+
+  // The ring holds increasing offsets, binary search it
+  private int indexOf(long offset) {
+    int mask = offsets.length - 1;
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long value = offsets[(head + mid) & mask];
+      if (value < offset) {
+        low = mid + 1;
+      } else if (value > offset) {
+        high = mid - 1;
+      } else {
+        return (head + mid) & mask;
+      }
+    }
+    return -1;
+  }
+
+  private void grow() {
+    int len = offsets.length;
+    long[] grownOffsets = new long[len << 1];
+    long[] grownAcked = new long[((len << 1) + 63) >> 6];
+    for (int i = 0;i < size;i++) {
+      int from = (head + i) & (len - 1);
+      grownOffsets[i] = offsets[from];
+      if ((acked[from >> 6] & (1L << from)) != 0L) {
+        grownAcked[i >> 6] |= 1L << i;
+      }
+    }
+    offsets = grownOffsets;
+    acked = grownAcked;
+    head = 0;
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import io.vertx.core.Context;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Flow.Publisher} of the batches of a {@link KafkaReadStream}, the batches are signalled by the
+ * {@link KafkaReadStream#batchHandler batch handler} of the stream. The stream flows while the subscription has
+ * demand and is paused otherwise, so a batch is only polled once the records of the previous batch have been
+ * dispatched and a batch has been requested. Empty polls are not signalled.
+ * <p>
+ * Like the {@link ReadStreamPublisher}, signals are sent on the stream context and only terminal failures end the
+ * subscription.
+ * <p>
+ * A stream has a single subscriber.
+ */
+class BatchPublisher<K, V> implements Flow.Publisher<ConsumerRecords<K, V>> {
+
+  private final KafkaReadStream<K, V> stream;
+  private final Context context;
+  private final Duration timeout;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  BatchPublisher(KafkaReadStream<K, V> stream, Context context, Duration timeout) {
+    this.stream = stream;
+    this.context = context;
+    this.timeout = timeout;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ConsumerRecords<K, V>> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(ReadStreamPublisher.NOOP);
+      subscriber.onError(new IllegalStateException("The stream already has a subscriber"));
+      return;
+    }
+    Subscription subscription = new Subscription(subscriber);
+    // nothing flows until the subscriber requests batches
+    stream.pause();
+    stream.pollTimeout(timeout);
+    stream.exceptionHandler(subscription::failed);
+    stream.endHandler(v -> subscription.complete());
+    stream.batchHandler(subscription::next);
+    // the records are dispatched to drive the stream, they are signalled with their batch
+    stream.handler(record -> {});
+    subscriber.onSubscribe(subscription);
+  }
+
+  private class Subscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super ConsumerRecords<K, V>> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    Subscription(Flow.Subscriber<? super ConsumerRecords<K, V>> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (done.get()) {
+        return;
+      }
+      if (n <= 0L) {
+        fail(new IllegalArgumentException("Non-positive request " + n));
+        return;
+      }
+      if (demand.getAndUpdate(v -> v + n < 0L ? Long.MAX_VALUE : v + n) == 0L) {
+        stream.resume();
+      }
+    }
+
+    @Override
+    public void cancel() {
+      if (done.compareAndSet(false, true)) {
+        release();
+      }
+    }
+
+    private void release() {
+      stream.pause();
+      stream.handler(null);
+      stream.batchHandler(null);
+      stream.exceptionHandler(null);
+      stream.endHandler(null);
+    }
+
+    // Called on the stream context
+    void next(ConsumerRecords<K, V> records) {
+      if (done.get()) {
+        return;
+      }
+      subscriber.onNext(records);
+      if (demand.updateAndGet(v -> v == Long.MAX_VALUE ? v : v - 1L) == 0L) {
+        stream.pause();
+        // a request racing with the pause resumed the stream before it was paused
+        if (demand.get() > 0L && !done.get()) {
+          stream.resume();
+        }
+      }
+    }
+
+    // Called by the stream exception handler, from the consumer thread or the stream context
+    void failed(Throwable cause) {
+      if (ReadStreamPublisher.isTerminal(cause)) {
+        fail(cause);
+      }
+    }
+
+    void fail(Throwable cause) {
+      context.runOnContext(v -> {
+        if (done.compareAndSet(false, true)) {
+          release();
+          subscriber.onError(cause);
+        }
+      });
+    }
+
+    void complete() {
+      if (done.compareAndSet(false, true)) {
+        release();
+        subscriber.onComplete();
+      }
+    }
+  }
+}
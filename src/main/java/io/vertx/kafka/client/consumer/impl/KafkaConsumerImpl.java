@@ -18,6 +18,7 @@ package io.vertx.kafka.client.consumer.impl;
 
 import io.vertx.core.*;
 import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.kafka.client.consumer.OffsetAndTimestamp;
 import io.vertx.kafka.client.common.impl.CloseHandler;
 import io.vertx.kafka.client.common.impl.Helper;
@@ -29,6 +30,8 @@ import io.vertx.kafka.client.consumer.KafkaConsumerRecords;
 import io.vertx.kafka.client.consumer.KafkaReadStream;
 import io.vertx.kafka.client.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -56,6 +59,7 @@ public class KafkaConsumerImpl<K, V> implements KafkaConsumer<K, V> {
 
   private final KafkaReadStream<K, V> stream;
   private final CloseHandler closeHandler;
+  private volatile boolean flyweightRecords;
 
   public KafkaConsumerImpl(KafkaReadStream<K, V> stream) {
     this.stream = stream;
@@ -79,7 +83,11 @@ public class KafkaConsumerImpl<K, V> implements KafkaConsumer<K, V> {
 
   @Override
   public KafkaConsumer<K, V> handler(Handler<KafkaConsumerRecord<K, V>> handler) {
-    if (handler != null) {
+    if (handler != null && this.flyweightRecords) {
+      // records are handled one at a time on the stream context
+      KafkaConsumerRecordImpl<K, V> flyweight = KafkaConsumerRecordImpl.flyweight();
+      this.stream.handler(record -> handler.handle(flyweight.reset(record)));
+    } else if (handler != null) {
       this.stream.handler(record -> handler.handle(new KafkaConsumerRecordImpl<>(record)));
     } else {
       this.stream.handler(null);
@@ -87,6 +95,12 @@ public class KafkaConsumerImpl<K, V> implements KafkaConsumer<K, V> {
     return this;
   }
 
+  @Override
+  public KafkaConsumer<K, V> flyweightRecords(boolean enabled) {
+    this.flyweightRecords = enabled;
+    return this;
+  }
+
   @Override
   public KafkaConsumer<K, V> pause() {
     this.stream.pause();
@@ -266,6 +280,100 @@ public class KafkaConsumerImpl<K, V> implements KafkaConsumer<K, V> {
     return this.stream.commit(Helper.to(offsets)).map(Helper::from);
   }
 
+  @Override
+  public Future<Void> commitAsync() {
+    return this.stream.commitAsync().mapEmpty();
+  }
+
+  @Override
+  public Future<Map<TopicPartition, OffsetAndMetadata>> commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    return this.stream.commitAsync(Helper.to(offsets)).map(Helper::from);
+  }
+
+  @Override
+  public KafkaConsumer<K, V> offsetCommitter(Duration interval, int ackThreshold) {
+    this.stream.offsetCommitter(interval, ackThreshold);
+    return this;
+  }
+
+  @Override
+  public KafkaConsumer<K, V> parallelHandler(int lanes, int maxQueuedPerLane, Function<KafkaConsumerRecord<K, V>, Future<Void>> handler) {
+    return this.parallelHandler(lanes, maxQueuedPerLane, false, handler);
+  }
+
+  @Override
+  public KafkaConsumer<K, V> parallelHandler(int lanes, int maxQueuedPerLane, boolean skipFailed, Function<KafkaConsumerRecord<K, V>, Future<Void>> handler) {
+    this.stream.parallelHandler(lanes, maxQueuedPerLane, skipFailed, record -> handler.apply(new KafkaConsumerRecordImpl<>(record)));
+    return this;
+  }
+
+  @Override
+  public ReadStream<KafkaConsumerRecord<K, V>> partitionStream(TopicPartition topicPartition) {
+    ReadStream<ConsumerRecord<K, V>> partitionStream = this.stream.partitionStream(Helper.to(topicPartition));
+    return new ReadStream<KafkaConsumerRecord<K, V>>() {
+      @Override
+      public ReadStream<KafkaConsumerRecord<K, V>> exceptionHandler(Handler<Throwable> handler) {
+        partitionStream.exceptionHandler(handler);
+        return this;
+      }
+      @Override
+      public ReadStream<KafkaConsumerRecord<K, V>> handler(Handler<KafkaConsumerRecord<K, V>> handler) {
+        if (handler != null) {
+          partitionStream.handler(record -> handler.handle(new KafkaConsumerRecordImpl<>(record)));
+        } else {
+          partitionStream.handler(null);
+        }
+        return this;
+      }
+      @Override
+      public ReadStream<KafkaConsumerRecord<K, V>> pause() {
+        partitionStream.pause();
+        return this;
+      }
+      @Override
+      public ReadStream<KafkaConsumerRecord<K, V>> resume() {
+        partitionStream.resume();
+        return this;
+      }
+      @Override
+      public ReadStream<KafkaConsumerRecord<K, V>> fetch(long amount) {
+        partitionStream.fetch(amount);
+        return this;
+      }
+      @Override
+      public ReadStream<KafkaConsumerRecord<K, V>> endHandler(Handler<Void> endHandler) {
+        partitionStream.endHandler(endHandler);
+        return this;
+      }
+    };
+  }
+
+  @Override
+  public KafkaConsumer<K, V> ackWindow(int maxInFlight) {
+    this.stream.ackWindow(maxInFlight);
+    return this;
+  }
+
+  @Override
+  public void ack(KafkaConsumerRecord<K, V> record) {
+    this.stream.ack(record.record());
+  }
+
+  @Override
+  public long commitLag() {
+    return this.stream.commitLag();
+  }
+
+  @Override
+  public long emptyPolls() {
+    return this.stream.emptyPolls();
+  }
+
+  @Override
+  public long refills() {
+    return this.stream.refills();
+  }
+
   @Override
   public Future<OffsetAndMetadata> committed(TopicPartition topicPartition) {
     return this.stream.committed(Helper.to(topicPartition)).map(Helper::from);
@@ -307,6 +415,11 @@ public class KafkaConsumerImpl<K, V> implements KafkaConsumer<K, V> {
     return this.stream.position(Helper.to(partition));
   }
 
+  @Override
+  public Future<ConsumerGroupMetadata> groupMetadata() {
+    return this.stream.groupMetadata();
+  }
+
   @Override
   public Future<OffsetAndTimestamp> offsetsForTimes(TopicPartition topicPartition, Long timestamp) {
     Map<TopicPartition, Long> topicPartitions = new HashMap<>();
@@ -385,6 +498,30 @@ public class KafkaConsumerImpl<K, V> implements KafkaConsumer<K, V> {
     return this;
   }
 
+  @Override
+  public KafkaConsumer<K, V> maxRecordsPerTick(int max) {
+    this.stream.maxRecordsPerTick(max);
+    return this;
+  }
+
+  @Override
+  public KafkaConsumer<K, V> maxTimePerTick(Duration budget) {
+    this.stream.maxTimePerTick(budget);
+    return this;
+  }
+
+  @Override
+  public KafkaConsumer<K, V> prefetchRecords(int max) {
+    this.stream.prefetchRecords(max);
+    return this;
+  }
+
+  @Override
+  public KafkaConsumer<K, V> localContextPerRecord(boolean localContextPerRecord) {
+    this.stream.localContextPerRecord(localContextPerRecord);
+    return this;
+  }
+
   @Override
   public Future<KafkaConsumerRecords<K, V>> poll(final Duration timeout) {
     return this.stream.poll(timeout).map(done -> new KafkaConsumerRecordsImpl<>(done));
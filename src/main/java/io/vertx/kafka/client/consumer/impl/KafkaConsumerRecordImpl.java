@@ -16,12 +16,16 @@
 
 package io.vertx.kafka.client.consumer.impl;
 
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
 import io.vertx.kafka.client.producer.KafkaHeader;
+import io.vertx.kafka.client.producer.impl.KafkaHeaderImpl;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.record.TimestampType;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -31,8 +35,9 @@ import java.util.List;
  */
 public class KafkaConsumerRecordImpl<K, V> implements KafkaConsumerRecord<K, V> {
 
-  private final ConsumerRecord<K, V> record;
+  private ConsumerRecord<K, V> record;
   private List<KafkaHeader> headers;
+  private final boolean headersView;
 
   /**
    * Constructor
@@ -40,7 +45,32 @@ public class KafkaConsumerRecordImpl<K, V> implements KafkaConsumerRecord<K, V>
    * @param record  Kafka consumer record for backing information
    */
   public KafkaConsumerRecordImpl(ConsumerRecord<K, V> record) {
+    this(record, false);
+  }
+
+  private KafkaConsumerRecordImpl(ConsumerRecord<K, V> record, boolean headersView) {
     this.record = record;
+    this.headersView = headersView;
+  }
+
+  /**
+   * Create a wrapper meant to be {@link #reset reused} for each record, its headers are a view over the headers
+   * of the current record and their values are not copied.
+   */
+  static <K, V> KafkaConsumerRecordImpl<K, V> flyweight() {
+    return new KafkaConsumerRecordImpl<>(null, true);
+  }
+
+  /**
+   * Make this wrapper the wrapper of another record, so a single wrapper can be reused.
+   *
+   * @param record  Kafka consumer record for backing information
+   * @return this wrapper
+   */
+  KafkaConsumerRecordImpl<K, V> reset(ConsumerRecord<K, V> record) {
+    this.record = record;
+    this.headers = null;
+    return this;
   }
 
   @Override
@@ -83,11 +113,37 @@ public class KafkaConsumerRecordImpl<K, V> implements KafkaConsumerRecord<K, V>
     return this.record;
   }
 
+  @Override
+  public KafkaHeader lastHeader(String key) {
+    if (record.headers() == null) {
+      return null;
+    }
+    Header header = record.headers().lastHeader(key);
+    return header == null ? null : view(header);
+  }
+
+  private static KafkaHeader view(Header header) {
+    byte[] value = header.value();
+    return new KafkaHeaderImpl(header.key(), value == null ? Buffer.buffer() : Buffer.buffer(Unpooled.wrappedBuffer(value)));
+  }
+
   @Override
   public List<KafkaHeader> headers() {
     if (headers == null) {
       if (record.headers() == null) {
         headers = Collections.emptyList();
+      } else if (headersView) {
+        Header[] array = record.headers().toArray();
+        headers = new AbstractList<KafkaHeader>() {
+          @Override
+          public KafkaHeader get(int index) {
+            return view(array[index]);
+          }
+          @Override
+          public int size() {
+            return array.length;
+          }
+        };
       } else {
         headers = new ArrayList<>();
         for (Header header : record.headers()) {
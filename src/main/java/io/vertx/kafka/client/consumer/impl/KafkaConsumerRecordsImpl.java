@@ -15,18 +15,32 @@
  */
 package io.vertx.kafka.client.consumer.impl;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 
+import io.vertx.core.Handler;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.common.impl.Helper;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecords;
 
+/**
+ * Records are wrapped on demand, reading a few records of a batch does not wrap the whole batch.
+ */
 public class KafkaConsumerRecordsImpl<K, V> implements KafkaConsumerRecords<K, V>{
 
   private final ConsumerRecords<K, V> records;
-  private List<KafkaConsumerRecord<K, V>> list;
+  // Per partition lists of the batch and the index of their first record, built on the first indexed access
+  private org.apache.kafka.common.TopicPartition[] topicPartitions;
+  private List<ConsumerRecord<K, V>>[] partitionRecords;
+  private int[] starts;
+  private KafkaConsumerRecord<K, V>[] wrappers;
 
   public KafkaConsumerRecordsImpl(ConsumerRecords<K, V> records) {
     this.records = records;
@@ -43,12 +57,81 @@ public class KafkaConsumerRecordsImpl<K, V> implements KafkaConsumerRecords<K, V
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public KafkaConsumerRecord<K, V> recordAt(int index) {
-    if (list == null) {
-      list = new ArrayList<>(records.count());
-      records.forEach(record -> list.add(new KafkaConsumerRecordImpl<K, V>(record)));
+    if (index < 0 || index >= records.count()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + records.count());
+    }
+    if (wrappers == null) {
+      if (starts == null) {
+        index();
+      }
+      wrappers = new KafkaConsumerRecord[records.count()];
+    }
+    KafkaConsumerRecord<K, V> wrapper = wrappers[index];
+    if (wrapper == null) {
+      int partition = partitionOf(index);
+      wrapper = new KafkaConsumerRecordImpl<>(partitionRecords[partition].get(index - starts[partition]));
+      wrappers[index] = wrapper;
+    }
+    return wrapper;
+  }
+
+  @Override
+  public void forEach(Handler<KafkaConsumerRecord<K, V>> handler) {
+    KafkaConsumerRecordImpl<K, V> flyweight = KafkaConsumerRecordImpl.flyweight();
+    for (ConsumerRecord<K, V> record : records) {
+      handler.handle(flyweight.reset(record));
+    }
+  }
+
+  @Override
+  public Set<TopicPartition> partitions() {
+    Set<TopicPartition> partitions = new LinkedHashSet<>();
+    for (org.apache.kafka.common.TopicPartition topicPartition : records.partitions()) {
+      partitions.add(Helper.from(topicPartition));
+    }
+    return partitions;
+  }
+
+  @Override
+  public List<KafkaConsumerRecord<K, V>> records(TopicPartition topicPartition) {
+    int partition = partitionOf(topicPartition);
+    if (partition < 0) {
+      return Collections.emptyList();
     }
-    return list.get(index);
+    int start = starts[partition];
+    int size = partitionRecords[partition].size();
+    // a view on the wrappers of the batch, a record is wrapped once whatever the way it is read
+    return new AbstractList<KafkaConsumerRecord<K, V>>() {
+      @Override
+      public KafkaConsumerRecord<K, V> get(int index) {
+        if (index < 0 || index >= size) {
+          throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return recordAt(start + index);
+      }
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public long firstOffset(TopicPartition topicPartition) {
+    int partition = partitionOf(topicPartition);
+    return partition < 0 ? -1L : partitionRecords[partition].get(0).offset();
+  }
+
+  @Override
+  public long lastOffset(TopicPartition topicPartition) {
+    int partition = partitionOf(topicPartition);
+    if (partition < 0) {
+      return -1L;
+    }
+    List<ConsumerRecord<K, V>> list = partitionRecords[partition];
+    return list.get(list.size() - 1).offset();
   }
 
   @Override
@@ -56,4 +139,49 @@ public class KafkaConsumerRecordsImpl<K, V> implements KafkaConsumerRecords<K, V
     return records;
   }
 
+  @SuppressWarnings("unchecked")
+  private void index() {
+    Set<org.apache.kafka.common.TopicPartition> partitions = records.partitions();
+    topicPartitions = new org.apache.kafka.common.TopicPartition[partitions.size()];
+    partitionRecords = new List[partitions.size()];
+    starts = new int[partitions.size()];
+    int i = 0;
+    int start = 0;
+    // the iteration order of the records is the iteration order of the partitions
+    for (org.apache.kafka.common.TopicPartition topicPartition : partitions) {
+      topicPartitions[i] = topicPartition;
+      partitionRecords[i] = records.records(topicPartition);
+      starts[i] = start;
+      start += partitionRecords[i].size();
+      i++;
+    }
+  }
+
+  // A batch has a few partitions, they are scanned instead of converting the topic partition for a map lookup
+  private int partitionOf(TopicPartition topicPartition) {
+    if (starts == null) {
+      index();
+    }
+    for (int i = 0;i < topicPartitions.length;i++) {
+      org.apache.kafka.common.TopicPartition candidate = topicPartitions[i];
+      if (candidate.partition() == topicPartition.getPartition() && candidate.topic().equals(topicPartition.getTopic())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int partitionOf(int index) {
+    int low = 0;
+    int high = starts.length - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (starts[mid] <= index) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
 }
@@ -22,36 +22,54 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.impl.CloseFuture;
 import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.common.impl.Helper;
+import io.vertx.kafka.client.common.impl.SerialExecutor;
+import io.vertx.kafka.client.common.impl.VirtualThreads;
 import io.vertx.kafka.client.common.tracing.ConsumerTracer;
 import io.vertx.kafka.client.consumer.KafkaReadStream;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.WakeupException;
 
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 /**
@@ -60,6 +78,10 @@ import java.util.regex.Pattern;
 public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
 
   private static final AtomicInteger threadCount = new AtomicInteger(0);
+  private static final long COMMIT_POKE_INTERVAL = 100;
+  private static final long POOLED_POLL_INTERVAL_MS = 10;
+  static final int ACK_WINDOW_PAUSE = 1; // Internal pause reasons of a partition, see pausePartition
+  static final int PARTITION_STREAM_PAUSE = 2;
 
   private final Context context;
   private final AtomicBoolean closed = new AtomicBoolean(true);
@@ -68,22 +90,94 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
 
   private final AtomicBoolean consuming = new AtomicBoolean(false);
   private final AtomicLong demand = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicInteger pauses = new AtomicInteger(); // Revokes the demand claimed by the dispatch loop
+  private volatile boolean dispatchPaused; // Paused by the parallel dispatcher, independently of the demand
+  private long claimedDemand; // Accessed on event loop, demand claimed by the dispatch loop but not used yet
+  private int claimedPauses; // Accessed on event loop
+  private volatile boolean dispatching;
+  private final Object commitLock = new Object();
+  private Map<TopicPartition, OffsetAndMetadata> pendingCommitOffsets = new HashMap<>(); // Guarded by commitLock
+  private List<Promise<Map<TopicPartition, OffsetAndMetadata>>> pendingCommits = new ArrayList<>(); // Guarded by commitLock
+  private List<Promise<Map<TopicPartition, OffsetAndMetadata>>> pendingConsumedCommits = new ArrayList<>(); // Guarded by commitLock
+  private boolean commitScheduled; // Guarded by commitLock
+  private final AtomicInteger commitsInFlight = new AtomicInteger();
+  private long commitPokeTimer = -1L; // Accessed on event loop
+  private volatile OffsetTracker offsetTracker;
+  private volatile PartitionStreams<K, V> partitionStreams;
+  private final Map<TopicPartition, Integer> pausedPartitions = new HashMap<>(); // Internal pause reasons, guarded by itself
+  private volatile int ackThreshold;
+  private volatile long commitInterval; // In millis, 0 when offsets are committed on the ack threshold only
+  private long commitTimer = -1L; // Accessed on event loop
+  private final LongAdder emptyPolls = new LongAdder();
+  private final LongAdder refills = new LongAdder();
   private final AtomicBoolean polling = new AtomicBoolean(false);
-  private Handler<ConsumerRecord<K, V>> recordHandler;
+  private volatile Handler<ConsumerRecord<K, V>> recordHandler;
   private Handler<Throwable> exceptionHandler;
   private Iterator<ConsumerRecord<K, V>> current; // Accessed on event loop
   private Handler<ConsumerRecords<K, V>> batchHandler;
   private Handler<Set<TopicPartition>> partitionsRevokedHandler;
   private Handler<Set<TopicPartition>> partitionsAssignedHandler;
+  private volatile Handler<Collection<TopicPartition>> revocationHandler; // Called on the consumer thread
   private Duration pollTimeout = Duration.ofSeconds(1);
-
-  private ExecutorService worker;
+  private volatile int maxRecordsPerTick = 10;
+  private volatile long maxNanosPerTick;
+  private volatile int maxPrefetchedRecords;
+  private volatile boolean localContextPerRecord;
+  private final ArrayDeque<ConsumerRecords<K, V>> prefetched = new ArrayDeque<>(); // Guarded by itself
+  private int prefetchedCount; // Guarded by prefetched
+  private ConsumerRecords<K, V> delivering; // Guarded by prefetched, the prefetched batch being delivered
+  private volatile int deliveredCount; // The records of the delivering batch handed to the handler, written on event loop
+  private final boolean autoCommit;
+  private int seeking; // Accessed on event loop
+
+  private final VertxInternal vertx;
+  private final boolean useVirtualThreads;
+  private final int poolSize;
+  private final String poolName;
+  private Executor worker;
+  private CloseFuture workerCloseFuture; // Set when the worker is a lane of a shared pool
+  private ScheduledExecutorService pollScheduler; // Set when the worker is a lane of a shared pool, reschedules empty polls
 
   private final ConsumerRebalanceListener rebalanceListener =  new ConsumerRebalanceListener() {
 
     @Override
     public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
 
+      Handler<Collection<TopicPartition>> revocation = revocationHandler;
+      if (revocation != null) {
+        try {
+          revocation.handle(partitions);
+        } catch (Exception e) {
+          handleException(e);
+        }
+      }
+
+      OffsetTracker tracker = offsetTracker;
+      if (tracker != null) {
+        // commit what has been processed before another consumer gets the partitions
+        try {
+          flushAcked(tracker, tracker.committable(partitions));
+        } catch (Exception e) {
+          handleException(e);
+        } finally {
+          tracker.remove(partitions);
+        }
+      }
+
+      synchronized (pausedPartitions) {
+        pausedPartitions.keySet().removeAll(partitions);
+      }
+
+      if (maxPrefetchedRecords > 0) {
+        // the buffered records might belong to the revoked partitions, the partitions kept fetch them again
+        discardPrefetched(consumer);
+      }
+
+      PartitionStreams<K, V> streams = partitionStreams;
+      if (streams != null) {
+        streams.revoked(partitions);
+      }
+
       Handler<Set<TopicPartition>> handler = partitionsRevokedHandler;
       if (handler != null) {
         context.runOnContext(v -> {
@@ -95,6 +189,11 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     @Override
     public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
 
+      PartitionStreams<K, V> streams = partitionStreams;
+      if (streams != null) {
+        streams.assigned(partitions);
+      }
+
       Handler<Set<TopicPartition>> handler = partitionsAssignedHandler;
       if (handler != null) {
         context.runOnContext(v -> {
@@ -109,18 +208,61 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     this.consumer = consumer;
     this.context = ctxInt;
     this.tracer = ConsumerTracer.create(ctxInt.tracer(), options);
+    this.vertx = (VertxInternal) vertx;
+    this.useVirtualThreads = options.isUseVirtualThreads();
+    if (this.useVirtualThreads) {
+      // fail fast when virtual threads are not supported
+      VirtualThreads.executor();
+    }
+    this.poolSize = options.getConsumerPoolSize();
+    this.poolName = options.getConsumerPoolName();
+    Map<String, Object> config = options.getConfig();
+    // the Kafka consumer commits automatically by default once it has a group
+    this.autoCommit = config != null && config.get(ConsumerConfig.GROUP_ID_CONFIG) != null
+      && !"false".equalsIgnoreCase(String.valueOf(config.getOrDefault(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true")).trim());
   }
 
   private <T> void start(java.util.function.BiConsumer<Consumer<K, V>, Promise<T>> task, Handler<AsyncResult<T>> handler) {
-    this.worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "vert.x-kafka-consumer-thread-" + threadCount.getAndIncrement()));
+    this.workerCloseFuture = null;
+    this.pollScheduler = null;
+    if (this.useVirtualThreads) {
+      this.worker = new SerialExecutor(VirtualThreads.executor());
+    } else if (this.poolSize > 0) {
+      this.workerCloseFuture = new CloseFuture();
+      this.pollScheduler = sharedPool(this.vertx, this.poolName, this.poolSize, this.workerCloseFuture);
+      this.worker = new SerialExecutor(this.pollScheduler);
+    } else {
+      this.worker = Executors.newSingleThreadExecutor(r -> new Thread(r, "vert.x-kafka-consumer-thread-" + threadCount.getAndIncrement()));
+    }
     this.submitTaskWhenStarted(task, handler);
   }
 
+  private static ScheduledExecutorService sharedPool(VertxInternal vertx, String name, int size, CloseFuture closeFuture) {
+    return vertx.createSharedResource("__vertx.shared.kafka.consumer.pool", name, closeFuture, cf -> {
+      AtomicInteger count = new AtomicInteger();
+      ScheduledExecutorService pool = Executors.newScheduledThreadPool(size, r -> new Thread(r, name + "-" + count.getAndIncrement()));
+      cf.add(completion -> {
+        pool.shutdownNow();
+        Future.<Void>succeededFuture().onComplete(completion);
+      });
+      return pool;
+    });
+  }
+
+  private void stopWorker() {
+    if (this.workerCloseFuture != null) {
+      // releases the shared pool, closed with its last consumer
+      this.workerCloseFuture.close();
+    } else if (this.worker instanceof ExecutorService) {
+      ((ExecutorService) this.worker).shutdownNow();
+    }
+  }
+
   private <T> void submitTaskWhenStarted(java.util.function.BiConsumer<Consumer<K, V>, Promise<T>> task, Handler<AsyncResult<T>> handler) {
     if (worker == null) {
       throw new IllegalStateException();
     }
-    this.worker.submit(() -> {
+    this.worker.execute(() -> {
       Promise<T> future = null;
       if (handler != null) {
         future = Promise.promise();
@@ -138,61 +280,237 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
         if (future != null) {
           future.tryFail(e);
         }
-        if (exceptionHandler != null) {
-          exceptionHandler.handle(e);
-        }
+        handleException(e);
       }
     });
   }
 
   private void pollRecords(Handler<ConsumerRecords<K, V>> handler) {
       if(this.polling.compareAndSet(false, true)){
-          this.worker.submit(() -> {
-             boolean submitted = false;
-             try {
-                if (!this.closed.get()) {
-                  try {
-                    ConsumerRecords<K, V> records = this.consumer.poll(pollTimeout);
-                    if (records != null && records.count() > 0) {
-                      submitted = true; // sets false only when the iterator is overwritten
-                      this.context.runOnContext(v -> {
-                          this.polling.set(false);
-                          handler.handle(records);
-                      });
-                    }
-                  } catch (WakeupException ignore) {
-                  } catch (Exception e) {
-                    if (exceptionHandler != null) {
-                      exceptionHandler.handle(e);
-                    }
-                  }
-                }
-             } finally {
-                 if(!submitted){
-                     this.context.runOnContext(v -> {
-                         this.polling.set(false);
-                         schedule(0);
-                     });
-                 }
-             }
-          });
+          this.worker.execute(() -> this.pollRecordsOnWorker(handler));
+      }
+  }
+
+  private void pollRecordsOnWorker(Handler<ConsumerRecords<K, V>> handler) {
+     boolean submitted = false;
+     try {
+        if (!this.closed.get()) {
+          try {
+            ConsumerRecords<K, V> records = this.consumer.poll(this.workerPollTimeout());
+            if (records != null && records.count() > 0) {
+              this.track(records);
+              submitted = true; // sets false only when the iterator is overwritten
+              this.context.runOnContext(v -> {
+                  this.polling.set(false);
+                  handler.handle(records);
+              });
+            }
+          } catch (WakeupException ignore) {
+          } catch (Exception e) {
+            handleException(e);
+          }
+        }
+     } finally {
+         if(!submitted){
+             this.pollAgain(() -> this.pollRecordsOnWorker(handler));
+         }
+     }
+  }
+
+  /**
+   * A consumer of a shared pool does not hold a pool thread while waiting for records: it polls without blocking
+   * and the next poll is scheduled after {@link #POOLED_POLL_INTERVAL_MS}, so the tasks of the other consumers of
+   * the pool, and its own commits or seeks, run in between.
+   */
+  private Duration workerPollTimeout() {
+    return this.pollScheduler != null ? Duration.ZERO : this.pollTimeout;
+  }
+
+  /**
+   * Called on the worker after a poll returned no records: polls again on the worker while records are wanted
+   * instead of waking up the event loop, the blocking poll paces the loop, or the poll scheduler when the worker
+   * is a lane of a shared pool. Otherwise the polling flag is released and checked again so that a concurrent
+   * {@link #fetch} or {@link #handler} is not missed.
+   */
+  private void pollAgain(Runnable poll) {
+    this.emptyPolls.increment();
+    if (!this.closed.get()) {
+      if (this.wantsRecords()) {
+        this.executePoll(poll);
+        return;
+      }
+      this.polling.set(false);
+      if (this.wantsRecords() && this.polling.compareAndSet(false, true)) {
+        this.executePoll(poll);
+      }
+    } else {
+      this.polling.set(false);
+    }
+  }
+
+  private void executePoll(Runnable poll) {
+    ScheduledExecutorService scheduler = this.pollScheduler;
+    if (scheduler == null) {
+      this.worker.execute(poll);
+      return;
+    }
+    long delay = Math.min(POOLED_POLL_INTERVAL_MS, this.pollTimeout.toMillis());
+    Executor lane = this.worker;
+    try {
+      scheduler.schedule(() -> lane.execute(poll), delay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // the pool is closed
+      this.polling.set(false);
+    }
+  }
+
+  // Called on the worker after a poll, so that the tracked partitions follow the assignment changes of the poll
+  private void track(ConsumerRecords<K, V> records) {
+    OffsetTracker tracker = this.offsetTracker;
+    if (tracker != null) {
+      for (TopicPartition partition : records.partitions()) {
+        tracker.add(partition, records.records(partition).get(0).offset());
+      }
+    }
+  }
+
+  private boolean wantsRecords() {
+    return this.consuming.get() && !this.dispatchPaused && this.demand() > 0L && this.recordHandler != null;
+  }
+
+  /**
+   * Poll the next batch into the prefetch buffer, records are added by the worker so that a seek submitted after
+   * this poll always sees them.
+   */
+  private void prefetch() {
+    if (!this.dispatchPaused && this.demand() > 0L && this.prefetchedCount() < this.maxPrefetchedRecords
+        && this.polling.compareAndSet(false, true)) {
+      this.worker.execute(this::prefetchOnWorker);
+    }
+  }
+
+  private void prefetchOnWorker() {
+    boolean submitted = false;
+    try {
+      if (!this.closed.get()) {
+        try {
+          ConsumerRecords<K, V> records = this.consumer.poll(this.workerPollTimeout());
+          if (records != null && records.count() > 0) {
+            this.track(records);
+            synchronized (this.prefetched) {
+              this.prefetched.add(records);
+              this.prefetchedCount += records.count();
+            }
+            submitted = true;
+            this.context.runOnContext(v -> {
+              this.polling.set(false);
+              schedule();
+            });
+          }
+        } catch (WakeupException ignore) {
+        } catch (Exception e) {
+          handleException(e);
+        }
+      }
+    } finally {
+      if (!submitted) {
+        this.pollAgain(this::prefetchOnWorker);
+      }
+    }
+  }
+
+  private int prefetchedCount() {
+    synchronized (this.prefetched) {
+      return this.prefetchedCount;
+    }
+  }
+
+  // Called on the event loop once the current batch is delivered
+  private ConsumerRecords<K, V> takePrefetched() {
+    synchronized (this.prefetched) {
+      ConsumerRecords<K, V> records = this.prefetched.poll();
+      if (records != null) {
+        this.prefetchedCount -= records.count();
+      }
+      this.delivering = records;
+      this.deliveredCount = 0;
+      return records;
+    }
+  }
+
+  private static <K, V> void firstOffsets(ConsumerRecords<K, V> records, Map<TopicPartition, Long> offsets) {
+    for (TopicPartition partition : records.partitions()) {
+      offsets.putIfAbsent(partition, records.records(partition).get(0).offset());
+    }
+  }
+
+  /**
+   * Called on the worker for the commits of the consumed offsets when prefetching: the buffered records have moved
+   * the positions of their partitions without being delivered, the offsets of the first undelivered records are
+   * committed instead.
+   *
+   * @return the offsets to commit, {@code null} when the positions can be committed
+   */
+  private Map<TopicPartition, OffsetAndMetadata> deliveredOffsets(Consumer<K, V> consumer) {
+    Map<TopicPartition, Long> undelivered = new HashMap<>();
+    synchronized (this.prefetched) {
+      ConsumerRecords<K, V> records = this.delivering;
+      if (records != null) {
+        // the handler might be running, the count read can only be behind
+        int delivered = this.deliveredCount;
+        Iterator<ConsumerRecord<K, V>> it = records.iterator();
+        for (int i = 0;i < delivered && it.hasNext();i++) {
+          it.next();
+        }
+        while (it.hasNext()) {
+          ConsumerRecord<K, V> record = it.next();
+          undelivered.putIfAbsent(new TopicPartition(record.topic(), record.partition()), record.offset());
+        }
+      }
+      for (ConsumerRecords<K, V> buffered : this.prefetched) {
+        firstOffsets(buffered, undelivered);
+      }
+    }
+    if (undelivered.isEmpty()) {
+      return null;
+    }
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    for (TopicPartition partition : consumer.assignment()) {
+      Long offset = undelivered.get(partition);
+      offsets.put(partition, new OffsetAndMetadata(offset != null ? offset : consumer.position(partition)));
+    }
+    return offsets;
+  }
+
+  // Called on the worker before seeking and on revocation, rewinds the partitions of the discarded records so they are fetched again
+  private void discardPrefetched(Consumer<K, V> consumer) {
+    Map<TopicPartition, Long> rewind = new HashMap<>();
+    synchronized (this.prefetched) {
+      for (ConsumerRecords<K, V> records : this.prefetched) {
+        firstOffsets(records, rewind);
       }
+      this.prefetched.clear();
+      this.prefetchedCount = 0;
+    }
+    if (!rewind.isEmpty()) {
+      Set<TopicPartition> assignment = consumer.assignment();
+      rewind.forEach((partition, offset) -> {
+        if (assignment.contains(partition)) {
+          consumer.seek(partition, offset);
+        }
+      });
+    }
   }
 
-  private void schedule(long delay) {
+  private void schedule() {
     Handler<ConsumerRecord<K, V>> handler = this.recordHandler;
 
     if (this.consuming.get()
-        && this.demand.get() > 0L
+        && !this.dispatchPaused
+        && this.demand() > 0L
         && handler != null) {
 
-      this.context.runOnContext(v1 -> {
-        if (delay > 0) {
-          this.context.owner().setTimer(delay, v2 -> run(handler));
-        } else {
-          run(handler);
-        }
-      });
+      this.context.runOnContext(v -> run(handler));
     }
   }
 
@@ -204,41 +522,122 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     }
 
     if (this.current == null || !this.current.hasNext()) {
+      if (this.seeking > 0) {
+        // resumed once the seek is done, so no buffered record from before the seek is delivered
+        return;
+      }
+      ConsumerRecords<K, V> records = this.takePrefetched();
+      if (records != null) {
+        this.current = records.iterator();
+        if (batchHandler != null) {
+          batchHandler.handle(records);
+        }
+      }
+    }
+
+    if (this.current == null || !this.current.hasNext()) {
+
+      this.refills.increment();
+      if (this.maxPrefetchedRecords > 0) {
+        this.prefetch();
+        return;
+      }
 
       this.pollRecords(records -> {
 
-        if (records != null && records.count() > 0) {
-          this.current = records.iterator();
-          if (batchHandler != null) {
-            batchHandler.handle(records);
-          }
-          this.schedule(0);
-        } else {
-          this.schedule(1);
+        this.current = records.iterator();
+        if (batchHandler != null) {
+          batchHandler.handle(records);
         }
+        this.schedule();
       });
 
     } else {
 
-      int count = 0;
-      out:
-      while (this.current.hasNext() && count++ < 10) {
+      ContextInternal context = (ContextInternal) this.context;
+      // a duplicated context per record is only needed for tracing or when asked for
+      boolean duplicate = this.tracer != null || this.localContextPerRecord;
+      int maxRecords = this.maxRecordsPerTick;
+      long maxNanos = this.maxNanosPerTick;
+      long deadline = maxNanos > 0L ? System.nanoTime() + maxNanos : 0L;
+      // demand is claimed in bulk, pausing the stream revokes the claim
+      int pauses = this.pauses.get();
+      long claimed = this.claimedPauses == pauses ? this.claimedDemand : 0L;
+      this.claimedDemand = claimed;
+      this.claimedPauses = pauses;
+      OffsetTracker tracker = this.offsetTracker;
+      int windowSize = tracker != null ? tracker.windowSize() : 0;
+      boolean prefetching = this.maxPrefetchedRecords > 0;
+      this.dispatching = true;
+      try {
+        int count = 0;
+        while (this.current.hasNext() && count < maxRecords) {
+
+          // the first record of a turn is always delivered so the stream makes progress with slow handlers
+          if (deadline != 0L && count > 0 && System.nanoTime() - deadline >= 0L) {
+            break;
+          }
 
-        // to honor the Vert.x ReadStream contract, handler should not be called if stream is paused
-        while (true) {
-          long v = this.demand.get();
-          if (v <= 0L) {
-            break out;
-          } else if (v == Long.MAX_VALUE || this.demand.compareAndSet(v, v - 1)) {
+          // to honor the Vert.x ReadStream contract, handler should not be called if stream is paused
+          if (this.pauses.get() != pauses) {
+            claimed = 0L;
+            break;
+          }
+          if (claimed == 0L && (claimed = this.claimDemand(maxRecords - count)) == 0L) {
             break;
           }
+          if (claimed != Long.MAX_VALUE) {
+            this.claimedDemand = --claimed;
+          }
+          count++;
+
+          ConsumerRecord<K, V> next = this.current.next();
+          if (prefetching) {
+            // a commit of the consumed offsets skips the records handed to the handler
+            this.deliveredCount++;
+          }
+          if (windowSize > 0) {
+            this.deliver(tracker, windowSize, next);
+          }
+          if (duplicate) {
+            ContextInternal ctx = context.duplicate();
+            ctx.emit(next, this.tracedHandler(ctx, handler));
+          } else {
+            context.emit(next, handler);
+          }
         }
+      } finally {
+        // unbounded demand is not kept, it is read again by the next turn
+        this.claimedDemand = claimed == Long.MAX_VALUE ? 0L : claimed;
+        this.dispatching = false;
+      }
+      if (this.maxPrefetchedRecords > 0) {
+        this.prefetch();
+      }
+      this.schedule();
+    }
+  }
 
-        ConsumerRecord<K, V> next = this.current.next();
-        ContextInternal ctx = ((ContextInternal)this.context).duplicate();
-        ctx.emit(v -> this.tracedHandler(ctx, handler).handle(next));
+  /**
+   * Claim up to {@code max} records of demand with a single update.
+   *
+   * @return the claimed demand, {@code Long.MAX_VALUE} when the demand is unbounded
+   */
+  private long claimDemand(long max) {
+    if (this.dispatchPaused) {
+      return 0L;
+    }
+    while (true) {
+      long v = this.demand.get();
+      if (v <= 0L) {
+        return 0L;
+      } else if (v == Long.MAX_VALUE) {
+        return Long.MAX_VALUE;
+      }
+      long n = Math.min(v, max);
+      if (this.demand.compareAndSet(v, v - n)) {
+        return n;
       }
-      this.schedule(0);
     }
   }
 
@@ -313,64 +712,53 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
 
   @Override
   public Future<Void> seekToEnd(Set<TopicPartition> topicPartitions) {
-    Promise<Void> promise = Promise.promise();
-    this.context.runOnContext(r -> {
-      current = null;
-
-      this.submitTask((consumer, future) -> {
-        consumer.seekToEnd(topicPartitions);
-        if (future != null) {
-          future.complete();
-        }
-      }, promise);
-    });
-    return promise.future();
+    return this.submitSeek(topicPartitions, consumer -> consumer.seekToEnd(topicPartitions));
   }
 
   @Override
   public Future<Void> seekToBeginning(Set<TopicPartition> topicPartitions) {
-    Promise<Void> promise = Promise.promise();
-    this.context.runOnContext(r -> {
-      current = null;
-
-      this.submitTask((consumer, future) -> {
-        consumer.seekToBeginning(topicPartitions);
-        if (future != null) {
-          future.complete();
-        }
-      }, promise);
-    });
-    return promise.future();
+    return this.submitSeek(topicPartitions, consumer -> consumer.seekToBeginning(topicPartitions));
   }
 
   @Override
   public Future<Void> seek(TopicPartition topicPartition, long offset) {
-    Promise<Void> promise = Promise.promise();
-    this.context.runOnContext(r -> {
-      current = null;
-
-      this.submitTask((consumer, future) -> {
-        consumer.seek(topicPartition, offset);
-        if (future != null) {
-          future.complete();
-        }
-      }, promise);
-    });
-    return promise.future();
+    return this.submitSeek(Collections.singleton(topicPartition), consumer -> consumer.seek(topicPartition, offset));
   }
 
   @Override
   public Future<Void> seek(TopicPartition topicPartition, OffsetAndMetadata offsetAndMetadata) {
+    return this.submitSeek(Collections.singleton(topicPartition), consumer -> consumer.seek(topicPartition, offsetAndMetadata));
+  }
+
+  // An empty set of partitions seeks all the assigned partitions, like the consumer does
+  private Future<Void> submitSeek(Collection<TopicPartition> topicPartitions, java.util.function.Consumer<Consumer<K, V>> seek) {
     Promise<Void> promise = Promise.promise();
     this.context.runOnContext(r -> {
       current = null;
+      seeking++;
 
       this.submitTask((consumer, future) -> {
-        consumer.seek(topicPartition, offsetAndMetadata);
+        this.discardPrefetched(consumer);
+        synchronized (this.prefetched) {
+          // the rest of the batch being delivered is dropped by the seek
+          this.delivering = null;
+        }
+        seek.accept(consumer);
+        OffsetTracker tracker = this.offsetTracker;
+        if (tracker != null) {
+          // the records delivered before the seek are not awaited anymore
+          for (TopicPartition partition : tracker.reset(topicPartitions)) {
+            this.resumePartition(partition, ACK_WINDOW_PAUSE);
+          }
+        }
         if (future != null) {
           future.complete();
         }
-      }, promise);
+      }, ar -> {
+        seeking--;
+        this.schedule();
+        promise.handle(ar);
+      });
     });
     return promise.future();
   }
@@ -381,6 +769,16 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     return this;
   }
 
+  /**
+   * Set a handler called on the consumer thread before partitions are revoked, unlike the
+   * {@link #partitionsRevokedHandler(Handler)} the revocation completes only once the handler has returned.
+   *
+   * @param handler the handler, called with the partitions being revoked
+   */
+  public void revocationHandler(Handler<Collection<TopicPartition>> handler) {
+    this.revocationHandler = handler;
+  }
+
   @Override
   public KafkaReadStream<K, V> partitionsAssignedHandler(Handler<Set<TopicPartition>> handler) {
     this.partitionsAssignedHandler = handler;
@@ -501,7 +899,10 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
   public Future<Map<TopicPartition, OffsetAndMetadata>> commit(Map<TopicPartition, OffsetAndMetadata> offsets) {
     return this.submitTask2((consumer, future) -> {
 
-      if (offsets == null) {
+      Map<TopicPartition, OffsetAndMetadata> delivered = offsets == null && this.maxPrefetchedRecords > 0 ? this.deliveredOffsets(consumer) : null;
+      if (delivered != null) {
+        consumer.commitSync(delivered);
+      } else if (offsets == null) {
         consumer.commitSync();
       } else {
         consumer.commitSync(offsets);
@@ -513,6 +914,347 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     });
   }
 
+  @Override
+  public Future<Map<TopicPartition, OffsetAndMetadata>> commitAsync() {
+    return commitAsync(null);
+  }
+
+  @Override
+  public Future<Map<TopicPartition, OffsetAndMetadata>> commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    Promise<Map<TopicPartition, OffsetAndMetadata>> promise = ((ContextInternal) this.context).promise();
+    boolean schedule;
+    synchronized (this.commitLock) {
+      if (offsets == null) {
+        this.pendingConsumedCommits.add(promise);
+      } else {
+        offsets.forEach((partition, offset) -> this.pendingCommitOffsets.merge(partition, offset,
+          (o1, o2) -> o1.offset() >= o2.offset() ? o1 : o2));
+        this.pendingCommits.add(promise);
+      }
+      schedule = !this.commitScheduled;
+      this.commitScheduled = true;
+    }
+    if (schedule) {
+      this.submitTask((consumer, future) -> this.flushCommits(consumer), null);
+    }
+    return promise.future();
+  }
+
+  // Called on the worker, commits all the requests made since the last flush at once
+  private void flushCommits(Consumer<K, V> consumer) {
+    Map<TopicPartition, OffsetAndMetadata> offsets;
+    List<Promise<Map<TopicPartition, OffsetAndMetadata>>> commits;
+    List<Promise<Map<TopicPartition, OffsetAndMetadata>>> consumedCommits;
+    synchronized (this.commitLock) {
+      offsets = this.pendingCommitOffsets;
+      commits = this.pendingCommits;
+      consumedCommits = this.pendingConsumedCommits;
+      this.pendingCommitOffsets = new HashMap<>();
+      this.pendingCommits = new ArrayList<>();
+      this.pendingConsumedCommits = new ArrayList<>();
+      this.commitScheduled = false;
+    }
+    if (!consumedCommits.isEmpty()) {
+      this.commitAsync(consumer, this.maxPrefetchedRecords > 0 ? this.deliveredOffsets(consumer) : null, consumedCommits);
+    }
+    if (!commits.isEmpty()) {
+      this.commitAsync(consumer, offsets, commits);
+    }
+  }
+
+  private void commitAsync(Consumer<K, V> consumer, Map<TopicPartition, OffsetAndMetadata> offsets,
+                           List<Promise<Map<TopicPartition, OffsetAndMetadata>>> promises) {
+    // the promises belong to the stream context, they are completed on it
+    OffsetCommitCallback callback = (committed, err) -> {
+      this.commitsInFlight.decrementAndGet();
+      for (Promise<Map<TopicPartition, OffsetAndMetadata>> promise : promises) {
+        if (err != null) {
+          promise.fail(err);
+        } else {
+          promise.complete(committed);
+        }
+      }
+    };
+    this.commitsInFlight.incrementAndGet();
+    try {
+      if (offsets == null) {
+        consumer.commitAsync(callback);
+      } else {
+        consumer.commitAsync(offsets, callback);
+      }
+    } catch (Exception e) {
+      callback.onComplete(null, e);
+      return;
+    }
+    this.context.runOnContext(v -> this.pokeCommits());
+  }
+
+  /**
+   * The consumer only calls the commit callbacks when it is used, e.g by the poll loop, so while commits are in
+   * flight the consumer thread is periodically asked to call the callbacks of the completed commits, this happens
+   * without network round-trip when there is nothing else to commit.
+   */
+  private void pokeCommits() {
+    if (this.commitPokeTimer == -1L && this.commitsInFlight.get() > 0) {
+      this.commitPokeTimer = this.context.owner().setTimer(COMMIT_POKE_INTERVAL, id -> {
+        this.commitPokeTimer = -1L;
+        if (this.commitsInFlight.get() > 0 && !this.closed.get()) {
+          this.worker.execute(() -> {
+            if (!this.closed.get()) {
+              try {
+                this.consumer.commitSync(Collections.emptyMap());
+              } catch (WakeupException ignore) {
+              } catch (Exception e) {
+                handleException(e);
+              }
+            }
+          });
+          this.pokeCommits();
+        }
+      });
+    }
+  }
+
+  @Override
+  public KafkaReadStream<K, V> offsetCommitter(Duration interval, int ackThreshold) {
+    if (interval.isNegative() || ackThreshold < 0) {
+      throw new IllegalArgumentException("Invalid offset committer interval " + interval + " or ack threshold " + ackThreshold);
+    }
+    this.tracker();
+    this.ackThreshold = ackThreshold;
+    this.commitInterval = interval.toMillis();
+    this.context.runOnContext(v -> {
+      this.cancelCommitTimer();
+      this.armCommitTimer();
+    });
+    return this;
+  }
+
+  @Override
+  public KafkaReadStream<K, V> ackWindow(int maxInFlight) {
+    if (maxInFlight < 0) {
+      throw new IllegalArgumentException("Invalid ack window " + maxInFlight);
+    }
+    this.tracker().windowSize(maxInFlight);
+    return this;
+  }
+
+  @Override
+  public void ack(ConsumerRecord<K, V> record) {
+    OffsetTracker tracker = this.offsetTracker;
+    if (tracker == null) {
+      throw new IllegalStateException("The offset committer is not enabled");
+    }
+    OffsetTracker.Partition partition = tracker.ack(record.topic(), record.partition(), record.offset());
+    if (partition == null) {
+      // the partition is not assigned anymore, its offsets are committed by the new owner
+      return;
+    }
+    AckWindow window = partition.window;
+    if (window != null && window.resume() && !this.closed.get()) {
+      this.resumePartition(partition.topicPartition, ACK_WINDOW_PAUSE);
+    }
+    int threshold = this.ackThreshold;
+    if (threshold > 0 && tracker.acks() >= threshold) {
+      this.commitAcked();
+    }
+  }
+
+  @Override
+  public KafkaReadStream<K, V> parallelHandler(int lanes, int maxQueuedPerLane, Function<ConsumerRecord<K, V>, Future<Void>> handler) {
+    return this.parallelHandler(lanes, maxQueuedPerLane, false, handler);
+  }
+
+  @Override
+  public KafkaReadStream<K, V> parallelHandler(int lanes, int maxQueuedPerLane, boolean skipFailed, Function<ConsumerRecord<K, V>, Future<Void>> handler) {
+    if (lanes < 1 || maxQueuedPerLane < 1) {
+      throw new IllegalArgumentException("Invalid lanes " + lanes + " or max queued records per lane " + maxQueuedPerLane);
+    }
+    OffsetTracker tracker = this.tracker();
+    if (tracker.windowSize() == 0) {
+      // the records of a partition complete out of order across the lanes
+      tracker.windowSize(lanes * (maxQueuedPerLane + 1));
+    }
+    return this.handler(new ParallelDispatcher<>(this, this.vertx, lanes, maxQueuedPerLane, skipFailed, handler));
+  }
+
+  @Override
+  public ReadStream<ConsumerRecord<K, V>> partitionStream(TopicPartition topicPartition) {
+    PartitionStreams<K, V> streams;
+    boolean created = false;
+    synchronized (this) {
+      streams = this.partitionStreams;
+      if (streams == null) {
+        if (this.recordHandler != null) {
+          throw new IllegalStateException("A record handler is already set");
+        }
+        streams = new PartitionStreams<>(this, this.context);
+        this.partitionStreams = streams;
+        created = true;
+      }
+    }
+    if (created) {
+      this.handler(streams);
+    }
+    return streams.get(topicPartition);
+  }
+
+  @Override
+  public Flow.Publisher<ConsumerRecord<K, V>> toPublisher() {
+    return new ReadStreamPublisher<>(this, this.context);
+  }
+
+  @Override
+  public Flow.Publisher<ConsumerRecords<K, V>> toBatchPublisher(Duration pollTimeout) {
+    return new BatchPublisher<>(this, this.context, pollTimeout);
+  }
+
+  void handleException(Throwable t) {
+    Handler<Throwable> handler = this.exceptionHandler;
+    if (handler != null) {
+      handler.handle(t);
+    }
+    PartitionStreams<K, V> streams = this.partitionStreams;
+    if (streams != null) {
+      streams.exception(t);
+    }
+  }
+
+  // Report an exception from another thread on the stream context
+  void reportException(Throwable t) {
+    this.context.runOnContext(v -> this.handleException(t));
+  }
+
+  // Report an exception ending the stream, the acknowledged offsets are committed by the close
+  void failAndClose(Throwable t) {
+    this.context.runOnContext(v -> {
+      if (!this.closed.get()) {
+        this.handleException(t);
+        this.close();
+      }
+    });
+  }
+
+  /**
+   * Pause a partition for an internal {@code reason}, the partition is paused on the consumer until all the reasons
+   * are gone so that an ack window and a partition stream do not resume each other's pause. Partitions that are not
+   * assigned anymore are skipped.
+   */
+  void pausePartition(TopicPartition topicPartition, int reason) {
+    if (this.closed.get()) {
+      return;
+    }
+    synchronized (this.pausedPartitions) {
+      int reasons = this.pausedPartitions.getOrDefault(topicPartition, 0);
+      this.pausedPartitions.put(topicPartition, reasons | reason);
+      if (reasons == 0) {
+        // submitted while holding the lock so the consumer sees the pauses and resumes in order
+        this.submitTask2((consumer, future) -> {
+          if (consumer.assignment().contains(topicPartition)) {
+            consumer.pause(Collections.singleton(topicPartition));
+          }
+          if (future != null) {
+            future.complete();
+          }
+        });
+      }
+    }
+  }
+
+  void resumePartition(TopicPartition topicPartition, int reason) {
+    if (this.closed.get()) {
+      return;
+    }
+    synchronized (this.pausedPartitions) {
+      Integer reasons = this.pausedPartitions.get(topicPartition);
+      if (reasons == null || (reasons & reason) == 0) {
+        return;
+      }
+      if (reasons != reason) {
+        this.pausedPartitions.put(topicPartition, reasons & ~reason);
+        return;
+      }
+      this.pausedPartitions.remove(topicPartition);
+      this.submitTask2((consumer, future) -> {
+        if (consumer.assignment().contains(topicPartition)) {
+          consumer.resume(Collections.singleton(topicPartition));
+        }
+        if (future != null) {
+          future.complete();
+        }
+      });
+    }
+  }
+
+  // Called on the event loop for each delivered record when the ack window is enabled
+  private void deliver(OffsetTracker tracker, int windowSize, ConsumerRecord<K, V> record) {
+    OffsetTracker.Partition partition = tracker.partition(record.topic(), record.partition());
+    if (partition == null) {
+      // revoked after the poll
+      return;
+    }
+    switch (partition.deliver(record.offset(), windowSize)) {
+      case AckWindow.PAUSE:
+        this.pausePartition(partition.topicPartition, ACK_WINDOW_PAUSE);
+        break;
+      case AckWindow.RESUME:
+        this.resumePartition(partition.topicPartition, ACK_WINDOW_PAUSE);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private synchronized OffsetTracker tracker() {
+    if (this.offsetTracker == null) {
+      this.offsetTracker = new OffsetTracker();
+    }
+    return this.offsetTracker;
+  }
+
+  @Override
+  public long commitLag() {
+    OffsetTracker tracker = this.offsetTracker;
+    return tracker == null ? 0L : tracker.lag();
+  }
+
+  private void commitAcked() {
+    OffsetTracker tracker = this.offsetTracker;
+    Map<TopicPartition, OffsetAndMetadata> offsets = tracker.committable();
+    if (!offsets.isEmpty() && !this.closed.get()) {
+      this.commitAsync(offsets).onComplete(ar -> {
+        if (ar.succeeded()) {
+          tracker.committed(offsets);
+        } else {
+          this.handleException(ar.cause());
+        }
+      });
+    }
+  }
+
+  // Called on the worker
+  private void flushAcked(OffsetTracker tracker, Map<TopicPartition, OffsetAndMetadata> offsets) {
+    if (!offsets.isEmpty()) {
+      this.consumer.commitSync(offsets);
+      tracker.committed(offsets);
+    }
+  }
+
+  // Called on the event loop, the timer is armed once the stream consumes and the interval is set
+  private void armCommitTimer() {
+    long ms = this.commitInterval;
+    if (this.commitTimer == -1L && ms > 0 && this.consuming.get() && !this.closed.get()) {
+      this.commitTimer = this.context.owner().setPeriodic(ms, id -> this.commitAcked());
+    }
+  }
+
+  private void cancelCommitTimer() {
+    if (this.commitTimer != -1L) {
+      this.context.owner().cancelTimer(this.commitTimer);
+      this.commitTimer = -1L;
+    }
+  }
+
   @Override
   public Future<List<PartitionInfo>> partitionsFor(String topic) {
     return this.submitTask2((consumer, future) -> {
@@ -532,13 +1274,15 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
   @Override
   public KafkaReadStreamImpl<K, V> handler(Handler<ConsumerRecord<K, V>> handler) {
     this.recordHandler = handler;
-    this.schedule(0);
+    this.schedule();
     return this;
   }
 
   @Override
   public KafkaReadStreamImpl<K, V> pause() {
+    // demand must be reset before revoking the claims, see run
     this.demand.set(0L);
+    this.pauses.incrementAndGet();
     return this;
   }
 
@@ -547,6 +1291,21 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     return fetch(Long.MAX_VALUE);
   }
 
+  /**
+   * Pause the dispatch of the records without changing the demand of the stream, so that it does not interfere
+   * with {@link #pause()} and {@link #resume()} called by the application.
+   */
+  void pauseDispatch() {
+    // the flag must be set before revoking the claims, see run
+    this.dispatchPaused = true;
+    this.pauses.incrementAndGet();
+  }
+
+  void resumeDispatch() {
+    this.dispatchPaused = false;
+    this.schedule();
+  }
+
   @Override
   public KafkaReadStreamImpl<K, V> fetch(long amount) {
     if (amount < 0) {
@@ -560,20 +1319,30 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
       }
       return val;
     });
-    if (op > 0L) {
-      this.schedule(0);
+    // when called by the handler, the dispatch loop schedules itself once the turn ends
+    if (op > 0L && !this.dispatching) {
+      this.schedule();
     }
     return this;
   }
 
   @Override
   public long demand() {
-    return this.demand.get();
+    long v = this.demand.get();
+    if (v == Long.MAX_VALUE) {
+      return v;
+    }
+    long claimed = this.claimedDemand;
+    if (claimed == 0L || this.pauses.get() != this.claimedPauses) {
+      return v;
+    }
+    return v + claimed < 0L ? Long.MAX_VALUE : v + claimed;
   }
 
   private KafkaReadStreamImpl<K, V> startConsuming() {
     this.consuming.set(true);
-    this.schedule(0);
+    this.context.runOnContext(v -> this.armCommitTimer());
+    this.schedule();
     return this;
   }
 
@@ -592,7 +1361,30 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
 
       final Promise<Void> promise = ctx.promise();
 
-      this.worker.submit(() -> {
+      this.context.runOnContext(v -> this.cancelCommitTimer());
+
+      synchronized (this.pausedPartitions) {
+        this.pausedPartitions.clear();
+      }
+      PartitionStreams<K, V> streams = this.partitionStreams;
+      if (streams != null) {
+        streams.close();
+      }
+
+      this.worker.execute(() -> {
+        OffsetTracker tracker = this.offsetTracker;
+        if (tracker != null) {
+          try {
+            try {
+              this.flushAcked(tracker, tracker.committable());
+            } catch (WakeupException e) {
+              // the wakeup above was not consumed by a poll
+              this.flushAcked(tracker, tracker.committable());
+            }
+          } catch (Exception e) {
+            handleException(e);
+          }
+        }
         try {
           this.consumer.close();
           promise.complete();
@@ -601,7 +1393,7 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
         }
       });
 
-      return promise.future().onComplete(v -> this.worker.shutdownNow());
+      return promise.future().onComplete(v -> this.stopWorker());
     }
     return ctx.succeededFuture();
   }
@@ -616,6 +1408,16 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     });
   }
 
+  @Override
+  public Future<ConsumerGroupMetadata> groupMetadata() {
+    return this.submitTask2((consumer, future) -> {
+      ConsumerGroupMetadata groupMetadata = this.consumer.groupMetadata();
+      if (future != null) {
+        future.complete(groupMetadata);
+      }
+    });
+  }
+
   @Override
   public Future<Map<TopicPartition, OffsetAndTimestamp>> offsetsForTimes(Map<TopicPartition, Long> topicPartitionTimestamps) {
     return this.submitTask2((consumer, future) -> {
@@ -683,6 +1485,16 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     });
   }
 
+  @Override
+  public long emptyPolls() {
+    return this.emptyPolls.sum();
+  }
+
+  @Override
+  public long refills() {
+    return this.refills.sum();
+  }
+
   @Override
   public Consumer<K, V> unwrap() {
     return this.consumer;
@@ -699,6 +1511,43 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
     return this;
   }
 
+  @Override
+  public KafkaReadStream<K, V> maxRecordsPerTick(int max) {
+    if (max < 1) {
+      throw new IllegalArgumentException("Invalid max records per tick " + max);
+    }
+    this.maxRecordsPerTick = max;
+    return this;
+  }
+
+  @Override
+  public KafkaReadStream<K, V> maxTimePerTick(Duration budget) {
+    if (budget.isNegative()) {
+      throw new IllegalArgumentException("Invalid max time per tick " + budget);
+    }
+    this.maxNanosPerTick = budget.toNanos();
+    return this;
+  }
+
+  @Override
+  public KafkaReadStream<K, V> prefetchRecords(int max) {
+    if (max < 0) {
+      throw new IllegalArgumentException("Invalid max prefetched records " + max);
+    }
+    if (max > 0 && this.autoCommit) {
+      // the auto commit would commit the positions of the buffered records
+      throw new IllegalStateException("Prefetching requires enable.auto.commit=false");
+    }
+    this.maxPrefetchedRecords = max;
+    return this;
+  }
+
+  @Override
+  public KafkaReadStream<K, V> localContextPerRecord(boolean localContextPerRecord) {
+    this.localContextPerRecord = localContextPerRecord;
+    return this;
+  }
+
   @Override
   public Future<ConsumerRecords<K, V>> poll(final Duration timeout) {
     final Promise<ConsumerRecords<K, V>> promise = Promise.promise();
@@ -706,10 +1555,11 @@ public class KafkaReadStreamImpl<K, V> implements KafkaReadStream<K, V> {
       promise.fail(new IllegalStateException("Consumer is not subscribed to any topics or assigned any partitions"));
       return promise.future();
     }
-    this.worker.submit(() -> {
+    this.worker.execute(() -> {
       if (!this.closed.get()) {
         try {
           ConsumerRecords<K, V> records = this.consumer.poll(timeout);
+          this.track(records);
           this.context.runOnContext(v -> promise.complete(records));
         } catch (WakeupException ignore) {
           this.context.runOnContext(v -> promise.complete(ConsumerRecords.empty()));
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Tracks the acknowledged offsets of each partition. Records are acknowledged in offset order unless an
+ * {@link AckWindow} is used, then they can be acknowledged in any order. Acknowledging a record of a known partition
+ * does not allocate, partitions are looked up by topic then by index.
+ * <p>
+ * Partitions are added when records are fetched and removed when they are revoked, an acknowledgement never adds a
+ * partition so that a late acknowledgement of a revoked partition is ignored. The ack windows of a partition are reset
+ * when the stream seeks it.
+ */
+class OffsetTracker {
+
+  static class Partition {
+
+    private static final AtomicLongFieldUpdater<Partition> ACKED = AtomicLongFieldUpdater.newUpdater(Partition.class, "acked");
+    private static final AtomicLongFieldUpdater<Partition> COMMITTED = AtomicLongFieldUpdater.newUpdater(Partition.class, "committed");
+
+    final TopicPartition topicPartition;
+    volatile long acked; // The next offset to commit
+    volatile long committed; // The last committed offset
+    volatile AckWindow window; // Set on delivery when the ack window is enabled
+
+    Partition(TopicPartition topicPartition, long offset) {
+      this.topicPartition = topicPartition;
+      this.acked = offset;
+      this.committed = offset;
+    }
+
+    void ack(long offset) {
+      AckWindow w = window;
+      if (w == null) {
+        advance(offset + 1);
+      } else {
+        long next = w.ack(offset);
+        if (next >= 0L) {
+          advance(next);
+        }
+      }
+    }
+
+    /**
+     * Record the delivery of a record, only called when the ack window is enabled. The first record after a
+     * {@link #reset() reset} starts a new window of the current window size. A record before the last delivered one
+     * can only come from a seek done directly on the consumer, it starts a new window as well.
+     *
+     * @return the {@link AckWindow} action for the partition
+     */
+    int deliver(long offset, int windowSize) {
+      AckWindow w = window;
+      boolean resume = false;
+      if (w == null || !w.accepts(offset)) {
+        resume = w != null && w.paused();
+        w = new AckWindow(windowSize);
+        window = w;
+      }
+      int action = w.deliver(offset);
+      return resume && action == AckWindow.NONE ? AckWindow.RESUME : action;
+    }
+
+    /**
+     * Stop tracking the delivered records after a seek, their acknowledgements are ignored.
+     *
+     * @return whether the dropped window had paused the partition
+     */
+    boolean reset() {
+      AckWindow w = window;
+      window = null;
+      return w != null && w.paused();
+    }
+
+    private void advance(long next) {
+      long current;
+      while ((current = acked) < next && !ACKED.compareAndSet(this, current, next)) {
+        // retry
+      }
+    }
+
+    void committed(long offset) {
+      long current;
+      while ((current = committed) < offset && !COMMITTED.compareAndSet(this, current, offset)) {
+        // retry
+      }
+    }
+
+    long lag() {
+      return Math.max(0L, acked - committed);
+    }
+  }
+
+  private final ConcurrentHashMap<String, Partition[]> partitions = new ConcurrentHashMap<>();
+  private final AtomicInteger acks = new AtomicInteger();
+  private volatile int windowSize;
+
+  /**
+   * Acknowledge a record.
+   *
+   * @return the partition of the record, {@code null} when the partition is not tracked and the record is ignored
+   */
+  Partition ack(String topic, int partition, long offset) {
+    Partition p = partition(topic, partition);
+    if (p != null) {
+      p.ack(offset);
+      acks.incrementAndGet();
+    }
+    return p;
+  }
+
+  /**
+   * @return the number of records acknowledged since offsets were last collected for a commit
+   */
+  int acks() {
+    return acks.get();
+  }
+
+  /**
+   * @return the maximum number of records in flight per partition, {@code 0} when records are acknowledged in order
+   */
+  int windowSize() {
+    return windowSize;
+  }
+
+  void windowSize(int windowSize) {
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * @return the tracked partition or {@code null}
+   */
+  Partition partition(String topic, int partition) {
+    Partition[] topicPartitions = partitions.get(topic);
+    if (topicPartitions != null && partition < topicPartitions.length) {
+      return topicPartitions[partition];
+    }
+    return null;
+  }
+
+  /**
+   * Track a partition from the first fetched offset, called on the worker after a poll.
+   */
+  void add(TopicPartition topicPartition, long offset) {
+    if (get(topicPartition) != null) {
+      return;
+    }
+    int partition = topicPartition.partition();
+    partitions.compute(topicPartition.topic(), (t, current) -> {
+      if (current != null && partition < current.length && current[partition] != null) {
+        return current;
+      }
+      // copy on write so lookups never see a partially updated array
+      Partition[] updated = current == null ? new Partition[partition + 1] : Arrays.copyOf(current, Math.max(current.length, partition + 1));
+      updated[partition] = new Partition(topicPartition, offset);
+      return updated;
+    });
+  }
+
+  /**
+   * @return the offsets acknowledged and not yet committed
+   */
+  Map<TopicPartition, OffsetAndMetadata> committable() {
+    acks.set(0);
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    for (Partition[] topicPartitions : partitions.values()) {
+      for (Partition p : topicPartitions) {
+        if (p != null && p.acked > p.committed) {
+          offsets.put(p.topicPartition, new OffsetAndMetadata(p.acked));
+        }
+      }
+    }
+    return offsets;
+  }
+
+  /**
+   * @return the offsets acknowledged and not yet committed of the given partitions
+   */
+  Map<TopicPartition, OffsetAndMetadata> committable(Collection<TopicPartition> topicPartitions) {
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    for (TopicPartition topicPartition : topicPartitions) {
+      Partition p = get(topicPartition);
+      if (p != null && p.acked > p.committed) {
+        offsets.put(topicPartition, new OffsetAndMetadata(p.acked));
+      }
+    }
+    return offsets;
+  }
+
+  void committed(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    offsets.forEach((topicPartition, offset) -> {
+      Partition p = get(topicPartition);
+      if (p != null) {
+        p.committed(offset.offset());
+      }
+    });
+  }
+
+  /**
+   * Reset the ack windows of the given partitions after a seek, all the partitions when {@code topicPartitions} is empty.
+   *
+   * @return the partitions paused by a dropped window
+   */
+  List<TopicPartition> reset(Collection<TopicPartition> topicPartitions) {
+    List<TopicPartition> paused = new ArrayList<>();
+    if (topicPartitions.isEmpty()) {
+      for (Partition[] current : partitions.values()) {
+        for (Partition p : current) {
+          if (p != null && p.reset()) {
+            paused.add(p.topicPartition);
+          }
+        }
+      }
+    } else {
+      for (TopicPartition topicPartition : topicPartitions) {
+        Partition p = get(topicPartition);
+        if (p != null && p.reset()) {
+          paused.add(topicPartition);
+        }
+      }
+    }
+    return paused;
+  }
+
+  void remove(Collection<TopicPartition> topicPartitions) {
+    for (TopicPartition topicPartition : topicPartitions) {
+      partitions.computeIfPresent(topicPartition.topic(), (t, current) -> {
+        if (topicPartition.partition() >= current.length) {
+          return current;
+        }
+        Partition[] updated = current.clone();
+        updated[topicPartition.partition()] = null;
+        return updated;
+      });
+    }
+  }
+
+  /**
+   * @return the number of records acknowledged and not yet committed
+   */
+  long lag() {
+    long lag = 0L;
+    for (Partition[] topicPartitions : partitions.values()) {
+      for (Partition p : topicPartitions) {
+        if (p != null) {
+          lag += p.lag();
+        }
+      }
+    }
+    return lag;
+  }
+
+  private Partition get(TopicPartition topicPartition) {
+    return partition(topicPartition.topic(), topicPartition.partition());
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.impl.VertxInternal;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Dispatches the records of a stream to lanes processing them concurrently, each lane runs on its own event loop
+ * context. Records with the same key, or without key from the same partition, always go to the same lane and a lane
+ * processes one record at a time, so the order of the records of a key is preserved.
+ * <p>
+ * The stream dispatch is paused while a lane is full and a record is acknowledged once processed, the offsets
+ * committed only cover fully processed records. A failed record is reported and closes the stream, unless failed
+ * records are skipped: it is not acknowledged so the committed offset of its partition does not move past it, its
+ * lane drops the queued records so that none of them is acknowledged before the stream is closed.
+ */
+class ParallelDispatcher<K, V> implements Handler<ConsumerRecord<K, V>> {
+
+  private final KafkaReadStreamImpl<K, V> stream;
+  private final Function<ConsumerRecord<K, V>, Future<Void>> processor;
+  private final int maxQueued;
+  private final boolean skipFailed;
+  private final List<Lane> lanes;
+  private int fullLanes; // Guarded by this
+
+  ParallelDispatcher(KafkaReadStreamImpl<K, V> stream, VertxInternal vertx, int lanes, int maxQueued,
+                     boolean skipFailed, Function<ConsumerRecord<K, V>, Future<Void>> processor) {
+    this.stream = stream;
+    this.processor = processor;
+    this.maxQueued = maxQueued;
+    this.skipFailed = skipFailed;
+    this.lanes = new ArrayList<>(lanes);
+    for (int i = 0;i < lanes;i++) {
+      this.lanes.add(new Lane(vertx.createEventLoopContext()));
+    }
+  }
+
+  @Override
+  public void handle(ConsumerRecord<K, V> record) {
+    lanes.get(Math.floorMod(hash(record), lanes.size())).add(record);
+  }
+
+  private static int hash(ConsumerRecord<?, ?> record) {
+    Object key = record.key();
+    if (key == null) {
+      return record.partition();
+    } else if (key instanceof byte[]) {
+      // arrays use the identity hash code
+      return Arrays.hashCode((byte[]) key);
+    }
+    return key.hashCode();
+  }
+
+  private synchronized void laneFull() {
+    if (fullLanes++ == 0) {
+      stream.pauseDispatch();
+    }
+  }
+
+  private synchronized void laneDrained() {
+    if (--fullLanes == 0) {
+      stream.resumeDispatch();
+    }
+  }
+
+  private class Lane {
+
+    private final ContextInternal context;
+    private final ArrayDeque<ConsumerRecord<K, V>> queue = new ArrayDeque<>(); // Guarded by this
+    private boolean processing; // Guarded by this
+    private boolean full; // Guarded by this
+    private boolean failed; // Guarded by this
+
+    Lane(ContextInternal context) {
+      this.context = context;
+    }
+
+    void add(ConsumerRecord<K, V> record) {
+      boolean start;
+      boolean pause = false;
+      synchronized (this) {
+        if (failed) {
+          // the stream is closing
+          return;
+        }
+        queue.add(record);
+        start = !processing;
+        processing = true;
+        if (!full && queue.size() >= maxQueued) {
+          full = true;
+          pause = true;
+        }
+      }
+      if (pause) {
+        laneFull();
+      }
+      if (start) {
+        context.runOnContext(v -> processNext());
+      }
+    }
+
+    // Runs on the lane context
+    private void processNext() {
+      ConsumerRecord<K, V> record;
+      boolean resume = false;
+      synchronized (this) {
+        record = queue.poll();
+        if (record == null) {
+          processing = false;
+          return;
+        }
+        if (full && queue.size() <= maxQueued / 2) {
+          full = false;
+          resume = true;
+        }
+      }
+      if (resume) {
+        laneDrained();
+      }
+      Future<Void> result;
+      try {
+        result = processor.apply(record);
+      } catch (Throwable t) {
+        result = Future.failedFuture(t);
+      }
+      result.onComplete(ar -> {
+        if (ar.failed()) {
+          if (!skipFailed) {
+            fail(ar.cause());
+            return;
+          }
+          stream.reportException(ar.cause());
+        }
+        stream.ack(record);
+        context.runOnContext(v -> processNext());
+      });
+    }
+
+    private void fail(Throwable cause) {
+      boolean drained;
+      synchronized (this) {
+        failed = true;
+        processing = false;
+        queue.clear();
+        drained = full;
+        full = false;
+      }
+      if (drained) {
+        laneDrained();
+      }
+      stream.failAndClose(cause);
+    }
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Routes the records of a stream to a {@link ReadStream} per partition, each with its own demand.
+ * <p>
+ * When a partition stream has no demand or no handler, its partition is paused on the consumer and the records
+ * already fetched are buffered, the partition is resumed once the buffered records have been delivered. The stream of
+ * a revoked partition ends and the records of the partition delivered after the revocation are dropped, all the
+ * streams end when the consumer is closed. The errors of the consumer are reported to every partition stream.
+ */
+class PartitionStreams<K, V> implements Handler<ConsumerRecord<K, V>> {
+
+  private final KafkaReadStreamImpl<K, V> stream;
+  private final Context context;
+  private final Map<String, PartitionStream[]> streams = new HashMap<>(); // Guarded by this
+  private final Set<TopicPartition> revoked = new HashSet<>(); // Guarded by this
+
+  PartitionStreams(KafkaReadStreamImpl<K, V> stream, Context context) {
+    this.stream = stream;
+    this.context = context;
+  }
+
+  synchronized ReadStream<ConsumerRecord<K, V>> get(TopicPartition topicPartition) {
+    return lookup(topicPartition.topic(), topicPartition.partition());
+  }
+
+  // Called on the stream context
+  @Override
+  public void handle(ConsumerRecord<K, V> record) {
+    PartitionStream partitionStream;
+    synchronized (this) {
+      partitionStream = find(record.topic(), record.partition());
+      if (partitionStream == null) {
+        TopicPartition topicPartition = new TopicPartition(record.topic(), record.partition());
+        if (revoked.contains(topicPartition)) {
+          // fetched before the partition was revoked, the new owner consumes it again
+          return;
+        }
+        partitionStream = lookup(record.topic(), record.partition());
+      }
+    }
+    partitionStream.add(record);
+  }
+
+  synchronized void assigned(Collection<TopicPartition> topicPartitions) {
+    revoked.removeAll(topicPartitions);
+  }
+
+  void revoked(Collection<TopicPartition> topicPartitions) {
+    synchronized (this) {
+      revoked.addAll(topicPartitions);
+    }
+    for (TopicPartition topicPartition : topicPartitions) {
+      PartitionStream partitionStream;
+      synchronized (this) {
+        PartitionStream[] topicStreams = streams.get(topicPartition.topic());
+        if (topicStreams == null || topicPartition.partition() >= topicStreams.length) {
+          continue;
+        }
+        partitionStream = topicStreams[topicPartition.partition()];
+        topicStreams[topicPartition.partition()] = null;
+      }
+      if (partitionStream != null) {
+        context.runOnContext(v -> partitionStream.end());
+      }
+    }
+  }
+
+  void close() {
+    List<PartitionStream> ended = new ArrayList<>();
+    synchronized (this) {
+      for (PartitionStream[] topicStreams : streams.values()) {
+        for (PartitionStream partitionStream : topicStreams) {
+          if (partitionStream != null) {
+            ended.add(partitionStream);
+          }
+        }
+      }
+      streams.clear();
+    }
+    context.runOnContext(v -> ended.forEach(PartitionStream::end));
+  }
+
+  void exception(Throwable t) {
+    List<Handler<Throwable>> handlers = new ArrayList<>();
+    synchronized (this) {
+      for (PartitionStream[] topicStreams : streams.values()) {
+        for (PartitionStream partitionStream : topicStreams) {
+          Handler<Throwable> handler;
+          if (partitionStream != null && (handler = partitionStream.exceptionHandler) != null) {
+            handlers.add(handler);
+          }
+        }
+      }
+    }
+    handlers.forEach(handler -> handler.handle(t));
+  }
+
+  private PartitionStream find(String topic, int partition) {
+    PartitionStream[] topicStreams = streams.get(topic);
+    return topicStreams != null && partition < topicStreams.length ? topicStreams[partition] : null;
+  }
+
+  private PartitionStream lookup(String topic, int partition) {
+    PartitionStream[] topicStreams = streams.get(topic);
+    if (topicStreams == null || partition >= topicStreams.length) {
+      topicStreams = topicStreams == null ? new PartitionStream[partition + 1] : Arrays.copyOf(topicStreams, partition + 1);
+      streams.put(topic, topicStreams);
+    }
+    PartitionStream partitionStream = topicStreams[partition];
+    if (partitionStream == null) {
+      partitionStream = new PartitionStream(new TopicPartition(topic, partition));
+      topicStreams[partition] = partitionStream;
+    }
+    return partitionStream;
+  }
+
+  private class PartitionStream implements ReadStream<ConsumerRecord<K, V>> {
+
+    private final TopicPartition topicPartition;
+    private final ArrayDeque<ConsumerRecord<K, V>> pending = new ArrayDeque<>(); // Accessed on the stream context
+    private boolean paused; // Whether the partition is paused on the consumer, accessed on the stream context
+    private volatile long demand = Long.MAX_VALUE;
+    private volatile Handler<ConsumerRecord<K, V>> handler;
+    private volatile Handler<Void> endHandler;
+    private volatile Handler<Throwable> exceptionHandler;
+
+    PartitionStream(TopicPartition topicPartition) {
+      this.topicPartition = topicPartition;
+    }
+
+    void add(ConsumerRecord<K, V> record) {
+      if (pending.isEmpty() && handler != null && claim()) {
+        handler.handle(record);
+      } else {
+        pending.add(record);
+      }
+      if (!paused && (handler == null || demand == 0L)) {
+        paused = true;
+        stream.pausePartition(topicPartition, KafkaReadStreamImpl.PARTITION_STREAM_PAUSE);
+      }
+    }
+
+    private boolean claim() {
+      synchronized (this) {
+        if (demand == 0L) {
+          return false;
+        } else if (demand != Long.MAX_VALUE) {
+          demand--;
+        }
+        return true;
+      }
+    }
+
+    // Called on the stream context
+    private void drain() {
+      Handler<ConsumerRecord<K, V>> h;
+      while (!pending.isEmpty() && (h = handler) != null && claim()) {
+        h.handle(pending.poll());
+      }
+      if (paused && pending.isEmpty() && handler != null && demand > 0L) {
+        paused = false;
+        stream.resumePartition(topicPartition, KafkaReadStreamImpl.PARTITION_STREAM_PAUSE);
+      }
+    }
+
+    private void end() {
+      pending.clear();
+      if (paused) {
+        paused = false;
+        stream.resumePartition(topicPartition, KafkaReadStreamImpl.PARTITION_STREAM_PAUSE);
+      }
+      Handler<Void> h = endHandler;
+      if (h != null) {
+        h.handle(null);
+      }
+    }
+
+    @Override
+    public ReadStream<ConsumerRecord<K, V>> exceptionHandler(Handler<Throwable> handler) {
+      this.exceptionHandler = handler;
+      return this;
+    }
+
+    @Override
+    public ReadStream<ConsumerRecord<K, V>> handler(Handler<ConsumerRecord<K, V>> handler) {
+      this.handler = handler;
+      context.runOnContext(v -> drain());
+      return this;
+    }
+
+    @Override
+    public ReadStream<ConsumerRecord<K, V>> pause() {
+      synchronized (this) {
+        demand = 0L;
+      }
+      return this;
+    }
+
+    @Override
+    public ReadStream<ConsumerRecord<K, V>> resume() {
+      return fetch(Long.MAX_VALUE);
+    }
+
+    @Override
+    public ReadStream<ConsumerRecord<K, V>> fetch(long amount) {
+      if (amount < 0) {
+        throw new IllegalArgumentException("Invalid claim " + amount);
+      }
+      synchronized (this) {
+        demand += amount;
+        if (demand < 0L) {
+          demand = Long.MAX_VALUE;
+        }
+      }
+      context.runOnContext(v -> drain());
+      return this;
+    }
+
+    @Override
+    public ReadStream<ConsumerRecord<K, V>> endHandler(Handler<Void> endHandler) {
+      this.endHandler = endHandler;
+      return this;
+    }
+  }
+}
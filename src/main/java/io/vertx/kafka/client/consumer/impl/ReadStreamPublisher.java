@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.consumer.impl;
+
+import io.vertx.core.Context;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.RebalanceInProgressException;
+import org.apache.kafka.common.errors.RetriableException;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link Flow.Publisher} of the records of a {@link KafkaReadStream}, the demand of the subscription is the demand
+ * of the stream: {@code request(n)} is {@code fetch(n)}, so no record is buffered by the publisher.
+ * <p>
+ * All the signals are sent on the stream context, so they are serial. The stream reports failures it recovers from,
+ * e.g. a failed commit, only the {@link #isTerminal(Throwable) terminal} ones end the subscription.
+ * <p>
+ * A stream has a single subscriber.
+ */
+class ReadStreamPublisher<K, V> implements Flow.Publisher<ConsumerRecord<K, V>> {
+
+  static final Flow.Subscription NOOP = new Flow.Subscription() {
+    @Override
+    public void request(long n) {
+    }
+    @Override
+    public void cancel() {
+    }
+  };
+
+  private final KafkaReadStream<K, V> stream;
+  private final Context context;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  ReadStreamPublisher(KafkaReadStream<K, V> stream, Context context) {
+    this.stream = stream;
+    this.context = context;
+  }
+
+  /**
+   * @return whether a failure reported by a stream ends its subscription, retried polls and failed commits do not
+   */
+  static boolean isTerminal(Throwable cause) {
+    return !(cause instanceof RetriableException
+      || cause instanceof CommitFailedException
+      || cause instanceof RebalanceInProgressException);
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ConsumerRecord<K, V>> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(NOOP);
+      subscriber.onError(new IllegalStateException("The stream already has a subscriber"));
+      return;
+    }
+    Subscription subscription = new Subscription(subscriber);
+    // nothing flows until the subscriber requests records
+    stream.pause();
+    stream.exceptionHandler(subscription::failed);
+    stream.endHandler(v -> subscription.complete());
+    stream.handler(subscription::next);
+    subscriber.onSubscribe(subscription);
+  }
+
+  private class Subscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super ConsumerRecord<K, V>> subscriber;
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    Subscription(Flow.Subscriber<? super ConsumerRecord<K, V>> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (done.get()) {
+        return;
+      }
+      if (n <= 0L) {
+        fail(new IllegalArgumentException("Non-positive request " + n));
+        return;
+      }
+      stream.fetch(n);
+    }
+
+    @Override
+    public void cancel() {
+      if (done.compareAndSet(false, true)) {
+        release();
+      }
+    }
+
+    private void release() {
+      stream.pause();
+      stream.handler(null);
+      stream.exceptionHandler(null);
+      stream.endHandler(null);
+    }
+
+    void next(ConsumerRecord<K, V> record) {
+      if (!done.get()) {
+        subscriber.onNext(record);
+      }
+    }
+
+    // Called by the stream exception handler, from the consumer thread or the stream context
+    void failed(Throwable cause) {
+      if (isTerminal(cause)) {
+        fail(cause);
+      }
+    }
+
+    void fail(Throwable cause) {
+      // signalled on the stream context, so that onError never runs concurrently with onNext
+      context.runOnContext(v -> {
+        if (done.compareAndSet(false, true)) {
+          release();
+          subscriber.onError(cause);
+        }
+      });
+    }
+
+    void complete() {
+      if (done.compareAndSet(false, true)) {
+        release();
+        subscriber.onComplete();
+      }
+    }
+  }
+}
@@ -25,7 +25,10 @@ import io.vertx.core.Vertx;
 import io.vertx.core.streams.WriteStream;
 import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.common.PartitionInfo;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
 import io.vertx.kafka.client.producer.impl.KafkaProducerImpl;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.common.serialization.Serializer;
 
@@ -319,6 +322,17 @@ public interface KafkaProducer<K, V> extends WriteStream<KafkaProducerRecord<K,
    */
   Future<Void> abortTransaction();
 
+  /**
+   * Adds the consumed offsets to the ongoing transaction, they are committed with the transaction.
+   * See {@link org.apache.kafka.clients.producer.KafkaProducer#sendOffsetsToTransaction(java.util.Map, ConsumerGroupMetadata)}
+   *
+   * @param offsets the offsets to commit, the offset of the next record to consume for each partition
+   * @param groupMetadata the group metadata of the consumer, see {@link io.vertx.kafka.client.consumer.KafkaConsumer#groupMetadata()}
+   * @return a future notified with the result
+   */
+  @GenIgnore
+  Future<Void> sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata);
+
   @Fluent
   @Override
   KafkaProducer<K, V> exceptionHandler(Handler<Throwable> handler);
@@ -327,6 +341,15 @@ public interface KafkaProducer<K, V> extends WriteStream<KafkaProducerRecord<K,
   @Override
   KafkaProducer<K, V> setWriteQueueMaxSize(int i);
 
+  /**
+   * Set the maximum number of records of the write queue, see {@link KafkaWriteStream#setWriteQueueMaxRecords(int)}.
+   *
+   * @param records  the maximum number of records of the write queue
+   * @return  current KafkaProducer instance
+   */
+  @Fluent
+  KafkaProducer<K, V> setWriteQueueMaxRecords(int records);
+
   @Fluent
   @Override
   KafkaProducer<K, V> drainHandler(Handler<Void> handler);
@@ -339,6 +362,20 @@ public interface KafkaProducer<K, V> extends WriteStream<KafkaProducerRecord<K,
    */
   Future<RecordMetadata> send(KafkaProducerRecord<K, V> record);
 
+  /**
+   * Asynchronously write a batch of records to a topic.
+   * <p>
+   * The records are handed to the producer together and the returned future is completed once all of them
+   * have been acknowledged, or failed with the first error when a record could not be written.
+   * <p>
+   * This method is not available to the other languages, the records can be sent with {@link #send(KafkaProducerRecord)}.
+   *
+   * @param records  records to write
+   * @return a {@code Future} completed with the metadata of the records, in the order of {@code records}
+   */
+  @GenIgnore
+  Future<List<RecordMetadata>> sendBatch(List<KafkaProducerRecord<K, V>> records);
+
   /**
    * Get the partition metadata for the give topic.
    *
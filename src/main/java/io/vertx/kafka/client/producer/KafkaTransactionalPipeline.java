@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.producer;
+
+import io.vertx.codegen.annotations.Fluent;
+import io.vertx.codegen.annotations.Nullable;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import io.vertx.kafka.client.producer.impl.KafkaTransactionalPipelineImpl;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A consume-transform-produce pipeline with exactly-once semantics: the batches polled from a {@link KafkaReadStream}
+ * are transformed to records written to a transactional {@link KafkaWriteStream}, the offsets of the consumed records
+ * are committed in the same transaction as the written records.
+ * <p>
+ * A transaction spans many batches, it is committed once {@link #maxRecords(int)} records have been consumed or
+ * {@link #maxInterval(Duration)} has elapsed since the first record of the transaction, so the cost of a commit
+ * is shared by the records of the transaction.
+ * <p>
+ * When a batch cannot be transformed or written, the transaction is aborted and the consumer seeks back to the first
+ * record of the transaction on the partitions still assigned, the records are processed again in a new transaction
+ * after a backoff growing with the consecutive aborts. The failure is reported to the
+ * {@link #exceptionHandler(Handler) exception handler}, the pipeline stops after {@link #maxRetries(int)} consecutive
+ * aborts.
+ * <p>
+ * When partitions are revoked, the ongoing transaction is committed before the revocation completes, so that the next
+ * owner of the partitions starts after the records of the transaction.
+ * <p>
+ * The stream must be assigned or subscribed and must not have a handler, it should be configured with
+ * {@code enable.auto.commit=false}, the consumers of the written records with {@code isolation.level=read_committed}.
+ * The producer must be configured with a {@code transactional.id}, transactions are initialized by the pipeline.
+ */
+public interface KafkaTransactionalPipeline<K, V, OK, OV> {
+
+  /**
+   * Default maximum number of records consumed in a transaction
+   */
+  int DEFAULT_MAX_RECORDS = 1000;
+
+  /**
+   * Default maximum duration of a transaction
+   */
+  Duration DEFAULT_MAX_INTERVAL = Duration.ofMillis(100);
+
+  /**
+   * Default maximum number of consecutive aborted transactions
+   */
+  int DEFAULT_MAX_RETRIES = 10;
+
+  /**
+   * Create a new pipeline.
+   *
+   * @param source the stream the records are consumed from
+   * @param sink the transactional stream the transformed records are written to
+   * @param transform the transformation of a batch of consumed records to the records to write
+   * @return the pipeline, not yet started
+   */
+  static <K, V, OK, OV> KafkaTransactionalPipeline<K, V, OK, OV> create(KafkaReadStream<K, V> source,
+                                                                       KafkaWriteStream<OK, OV> sink,
+                                                                       Function<ConsumerRecords<K, V>, Future<List<ProducerRecord<OK, OV>>>> transform) {
+    return new KafkaTransactionalPipelineImpl<>(source, sink, transform);
+  }
+
+  /**
+   * Set the maximum number of records consumed in a transaction, defaults to {@link #DEFAULT_MAX_RECORDS}.
+   * A transaction holds at least a batch, so it can be exceeded by the size of the last polled batch.
+   *
+   * @param maxRecords the maximum number of records
+   * @return current KafkaTransactionalPipeline instance
+   */
+  @Fluent
+  KafkaTransactionalPipeline<K, V, OK, OV> maxRecords(int maxRecords);
+
+  /**
+   * Set the maximum duration of a transaction, from its first consumed record, defaults to {@link #DEFAULT_MAX_INTERVAL}.
+   * The duration is checked after each poll, so it can be exceeded by the poll timeout.
+   *
+   * @param maxInterval the maximum duration
+   * @return current KafkaTransactionalPipeline instance
+   */
+  @Fluent
+  KafkaTransactionalPipeline<K, V, OK, OV> maxInterval(Duration maxInterval);
+
+  /**
+   * Set the timeout of the polls of the stream, defaults to {@link #DEFAULT_MAX_INTERVAL}.
+   *
+   * @param pollTimeout the poll timeout
+   * @return current KafkaTransactionalPipeline instance
+   */
+  @Fluent
+  KafkaTransactionalPipeline<K, V, OK, OV> pollTimeout(Duration pollTimeout);
+
+  /**
+   * Set the maximum number of consecutive aborted transactions before the pipeline stops, defaults to
+   * {@link #DEFAULT_MAX_RETRIES}.
+   *
+   * @param maxRetries the maximum number of retries, {@code 0} stops the pipeline on the first abort
+   * @return current KafkaTransactionalPipeline instance
+   */
+  @Fluent
+  KafkaTransactionalPipeline<K, V, OK, OV> maxRetries(int maxRetries);
+
+  /**
+   * Set the handler notified of the aborted transactions and of the failures stopping the pipeline.
+   *
+   * @param handler the exception handler
+   * @return current KafkaTransactionalPipeline instance
+   */
+  @Fluent
+  KafkaTransactionalPipeline<K, V, OK, OV> exceptionHandler(@Nullable Handler<Throwable> handler);
+
+  /**
+   * Initialize the transactions of the producer and start consuming.
+   *
+   * @return a future completed once the first transaction has begun
+   */
+  Future<Void> start();
+
+  /**
+   * Stop consuming, the ongoing transaction is committed. Neither the stream nor the producer is closed.
+   *
+   * @return a future completed once the ongoing transaction is committed
+   */
+  Future<Void> stop();
+
+  /**
+   * @return the number of committed transactions
+   */
+  long transactions();
+}
@@ -25,16 +25,20 @@ import io.vertx.core.streams.WriteStream;
 import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.producer.impl.KafkaWriteStreamImpl;
 import io.vertx.kafka.client.serialization.VertxSerdes;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.Serializer;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Flow;
 
 /**
  * A {@link WriteStream} for writing to Kafka {@link ProducerRecord}.
@@ -46,6 +50,8 @@ public interface KafkaWriteStream<K, V> extends WriteStream<ProducerRecord<K, V>
 
   int DEFAULT_MAX_SIZE = 1024 * 1024;
 
+  int DEFAULT_MAX_RECORDS = Integer.MAX_VALUE;
+
   /**
    * Create a new KafkaWriteStream instance
    *
@@ -196,14 +202,53 @@ public interface KafkaWriteStream<K, V> extends WriteStream<ProducerRecord<K, V>
     return new KafkaWriteStreamImpl<>(vertx, producer, new KafkaClientOptions());
   }
 
+  /**
+   * Create a new KafkaWriteStream instance
+   *
+   * @param vertx Vert.x instance to use
+   * @param producer  native Kafka producer instance
+   * @param options  Kafka producer options, the Kafka config of the options is ignored
+   */
+  static <K, V> KafkaWriteStream<K, V> create(Vertx vertx, Producer<K, V> producer, KafkaClientOptions options) {
+    return new KafkaWriteStreamImpl<>(vertx, producer, options);
+  }
+
   @Fluent
   @Override
   KafkaWriteStream<K, V> exceptionHandler(Handler<Throwable> handler);
 
+  /**
+   * Set the maximum size in bytes of the write queue, as estimated by the {@link #sizeEstimator(RecordSizeEstimator) size estimator}.
+   * {@link #writeQueueFull()} returns {@code true} when the records not yet acknowledged reach this size, and the
+   * drain handler is called when they fall under half of it.
+   *
+   * @param i  the maximum size in bytes of the write queue
+   * @return  current KafkaWriteStream instance
+   */
   @Fluent
   @Override
   KafkaWriteStream<K, V> setWriteQueueMaxSize(int i);
 
+  /**
+   * Set the maximum number of records of the write queue. {@link #writeQueueFull()} returns {@code true} when the records
+   * not yet acknowledged reach this number, and the drain handler is called when they fall under half of it and the size of
+   * the write queue is under half of its {@link #setWriteQueueMaxSize(int) maximum size}.
+   *
+   * @param records  the maximum number of records of the write queue, unbounded by default
+   * @return  current KafkaWriteStream instance
+   */
+  @Fluent
+  KafkaWriteStream<K, V> setWriteQueueMaxRecords(int records);
+
+  /**
+   * Set the estimator of the size of the records in the write queue, defaults to {@link RecordSizeEstimator#defaultEstimator()}.
+   *
+   * @param estimator  the size estimator
+   * @return  current KafkaWriteStream instance
+   */
+  @Fluent
+  KafkaWriteStream<K, V> sizeEstimator(RecordSizeEstimator<K, V> estimator);
+
   @Fluent
   @Override
   KafkaWriteStream<K, V> drainHandler(@Nullable Handler<Void> handler);
@@ -236,6 +281,16 @@ public interface KafkaWriteStream<K, V> extends WriteStream<ProducerRecord<K, V>
    */
   Future<Void> abortTransaction();
 
+  /**
+   * Adds the consumed offsets to the ongoing transaction, they are committed with the transaction.
+   * See {@link org.apache.kafka.clients.producer.KafkaProducer#sendOffsetsToTransaction(Map, ConsumerGroupMetadata)}
+   *
+   * @param offsets the offsets to commit, the offset of the next record to consume for each partition
+   * @param groupMetadata the group metadata of the consumer, see {@link io.vertx.kafka.client.consumer.KafkaReadStream#groupMetadata()}
+   * @return a future notified with the result
+   */
+  Future<Void> sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata);
+
   /**
    * Asynchronously write a record to a topic
    *
@@ -244,6 +299,17 @@ public interface KafkaWriteStream<K, V> extends WriteStream<ProducerRecord<K, V>
    */
   Future<RecordMetadata> send(ProducerRecord<K, V> record);
 
+  /**
+   * Asynchronously write a batch of records to a topic.
+   * <p>
+   * The records are handed to the producer together and the returned future is completed once all of them
+   * have been acknowledged, or failed with the first error when a record could not be written.
+   *
+   * @param records  records to write
+   * @return a {@code Future} completed with the metadata of the records, in the order of {@code records}
+   */
+  Future<List<RecordMetadata>> sendBatch(List<ProducerRecord<K, V>> records);
+
   /**
    * Get the partition metadata for the give topic.
    *
@@ -259,6 +325,18 @@ public interface KafkaWriteStream<K, V> extends WriteStream<ProducerRecord<K, V>
    */
   Future<Void> flush();
 
+  /**
+   * Adapt this stream to a reactive streams {@link Flow.Subscriber}: at most {@code maxInFlight} records are
+   * requested and not yet acknowledged by the producer, a record is requested each time a write completes. A failed
+   * write cancels the subscription, failed writes and publisher errors are reported to the
+   * {@link #exceptionHandler(Handler) exception handler}. When the publisher completes, the stream is flushed and
+   * ended once the records in flight are written.
+   *
+   * @param maxInFlight the maximum number of records requested and not yet written
+   * @return a subscriber writing the records to this stream
+   */
+  Flow.Subscriber<ProducerRecord<K, V>> toSubscriber(int maxInFlight);
+
   /**
    * Close the stream
    */
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2023 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.producer;
+
+import io.vertx.kafka.client.producer.impl.DefaultRecordSizeEstimator;
+import io.vertx.kafka.client.producer.impl.SerializedRecordSizeEstimator;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Estimates the size in bytes of the records written to a {@link KafkaWriteStream}, the write queue
+ * of the stream is bounded by the sum of the estimated sizes of the records not yet acknowledged.
+ */
+@FunctionalInterface
+public interface RecordSizeEstimator<K, V> {
+
+  /**
+   * The default estimator, it estimates the size of the key and the value of the record according to their type:
+   * <ul>
+   *   <li>the length of {@code byte[]}, {@code String} and {@link io.vertx.core.buffer.Buffer}</li>
+   *   <li>the approximate encoded length of {@link io.vertx.core.json.JsonObject} and {@link io.vertx.core.json.JsonArray}</li>
+   *   <li>the binary length of boxed primitives</li>
+   * </ul>
+   * Any other type counts for a single byte.
+   *
+   * @return the default estimator
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> RecordSizeEstimator<K, V> defaultEstimator() {
+    return (RecordSizeEstimator<K, V>) DefaultRecordSizeEstimator.INSTANCE;
+  }
+
+  /**
+   * An estimator reporting the size of the records as serialized by the producer. The producer must be created with
+   * the serializers of the estimator, {@link Serialized#keySerializer()} and {@link Serialized#valueSerializer()},
+   * they wrap the given serializers and record the size of their output, so the records are serialized once.
+   * <p>
+   * A record is counted with the {@link #defaultEstimator() default estimate} until the producer has serialized it.
+   *
+   * @param keySerializer the key serializer
+   * @param valueSerializer the value serializer
+   * @return the estimator
+   */
+  static <K, V> Serialized<K, V> serialized(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    return new SerializedRecordSizeEstimator<>(keySerializer, valueSerializer);
+  }
+
+  /**
+   * An estimator measuring the records serialized by its serializers.
+   */
+  interface Serialized<K, V> extends RecordSizeEstimator<K, V> {
+
+    /**
+     * @return the key serializer the producer must be created with
+     */
+    Serializer<K> keySerializer();
+
+    /**
+     * @return the value serializer the producer must be created with
+     */
+    Serializer<V> valueSerializer();
+  }
+
+  /**
+   * @param record the record
+   * @return the estimated size in bytes of the record
+   */
+  int size(ProducerRecord<K, V> record);
+}
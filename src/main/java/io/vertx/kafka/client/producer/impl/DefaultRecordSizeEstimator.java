@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.producer.impl;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.kafka.client.producer.RecordSizeEstimator;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the size of a record from the type of its key and value
+ */
+public class DefaultRecordSizeEstimator implements RecordSizeEstimator<Object, Object> {
+
+  public static final DefaultRecordSizeEstimator INSTANCE = new DefaultRecordSizeEstimator();
+
+  @Override
+  public int size(ProducerRecord<Object, Object> record) {
+    // a record always counts for at least one byte, so tombstones are bounded as well
+    return Math.max(1, sizeOf(record.key()) + sizeOf(record.value()));
+  }
+
+  static int sizeOf(Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).length;
+    } else if (value instanceof String) {
+      return ((String) value).length();
+    } else if (value instanceof Buffer) {
+      return ((Buffer) value).length();
+    } else if (value instanceof JsonObject) {
+      return jsonSizeOf(((JsonObject) value).getMap());
+    } else if (value instanceof JsonArray) {
+      return jsonSizeOf(((JsonArray) value).getList());
+    } else if (value instanceof Long || value instanceof Double) {
+      return 8;
+    } else if (value instanceof Integer || value instanceof Float) {
+      return 4;
+    } else if (value instanceof Short) {
+      return 2;
+    } else {
+      return 1;
+    }
+  }
+
+  /**
+   * Approximate the length of the JSON encoding of a value without encoding it.
+   */
+  private static int jsonSizeOf(Object value) {
+    if (value == null) {
+      return 4;
+    } else if (value instanceof String) {
+      return ((String) value).length() + 2;
+    } else if (value instanceof Map) {
+      int size = 2;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        size += String.valueOf(entry.getKey()).length() + 4 + jsonSizeOf(entry.getValue());
+      }
+      return size;
+    } else if (value instanceof List) {
+      int size = 2;
+      for (Object element : (List<?>) value) {
+        size += jsonSizeOf(element) + 1;
+      }
+      return size;
+    } else if (value instanceof JsonObject) {
+      return jsonSizeOf(((JsonObject) value).getMap());
+    } else if (value instanceof JsonArray) {
+      return jsonSizeOf(((JsonArray) value).getList());
+    } else if (value instanceof Boolean) {
+      return 5;
+    } else if (value instanceof Number) {
+      return 8;
+    } else if (value instanceof byte[]) {
+      // base64 encoded
+      return 4 * ((((byte[]) value).length + 2) / 3) + 2;
+    } else if (value instanceof Buffer) {
+      return 4 * ((((Buffer) value).length() + 2) / 3) + 2;
+    } else {
+      return String.valueOf(value).length() + 2;
+    }
+  }
+}
@@ -24,13 +24,18 @@ import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.common.impl.CloseHandler;
 import io.vertx.kafka.client.common.impl.Helper;
 import io.vertx.kafka.client.common.PartitionInfo;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
 import io.vertx.kafka.client.producer.KafkaProducer;
 import io.vertx.kafka.client.producer.KafkaProducerRecord;
 import io.vertx.kafka.client.producer.KafkaWriteStream;
 import io.vertx.kafka.client.producer.RecordMetadata;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.Serializer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -140,6 +145,11 @@ public class KafkaProducerImpl<K, V> implements KafkaProducer<K, V> {
     return this.stream.abortTransaction();
   }
 
+  @Override
+  public Future<Void> sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata) {
+    return this.stream.sendOffsetsToTransaction(Helper.to(offsets), groupMetadata);
+  }
+
   @Override
   public KafkaProducer<K, V> exceptionHandler(Handler<Throwable> handler) {
     this.stream.exceptionHandler(handler);
@@ -157,6 +167,21 @@ public class KafkaProducerImpl<K, V> implements KafkaProducer<K, V> {
     return this.stream.send(record.record()).map(Helper::from);
   }
 
+  @Override
+  public Future<List<RecordMetadata>> sendBatch(List<KafkaProducerRecord<K, V>> records) {
+    List<ProducerRecord<K, V>> list = new ArrayList<>(records.size());
+    for (KafkaProducerRecord<K, V> record : records) {
+      list.add(record.record());
+    }
+    return this.stream.sendBatch(list).map(metadata -> {
+      List<RecordMetadata> result = new ArrayList<>(metadata.size());
+      for (org.apache.kafka.clients.producer.RecordMetadata md : metadata) {
+        result.add(Helper.from(md));
+      }
+      return result;
+    });
+  }
+
   @Override
   public Future<List<PartitionInfo>> partitionsFor(String topic) {
     return this.stream.partitionsFor(topic).map(list ->
@@ -184,6 +209,12 @@ public class KafkaProducerImpl<K, V> implements KafkaProducer<K, V> {
     return this;
   }
 
+  @Override
+  public KafkaProducer<K, V> setWriteQueueMaxRecords(int records) {
+    this.stream.setWriteQueueMaxRecords(records);
+    return this;
+  }
+
   @Override
   public boolean writeQueueFull() {
     return this.stream.writeQueueFull();
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2023 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.producer.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.kafka.client.consumer.KafkaReadStream;
+import io.vertx.kafka.client.consumer.impl.KafkaReadStreamImpl;
+import io.vertx.kafka.client.producer.KafkaTransactionalPipeline;
+import io.vertx.kafka.client.producer.KafkaWriteStream;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Kafka transactional pipeline implementation.
+ * <p>
+ * The pipeline runs a single loop: poll, transform, write and, once a threshold is reached, commit. The state of the
+ * ongoing transaction is only accessed by the loop, each step starting when the previous one has completed. The only
+ * exception is the revocation of partitions, it happens on the consumer thread during a poll of the loop: the ongoing
+ * transaction is then committed before the partitions are handed to another consumer.
+ */
+public class KafkaTransactionalPipelineImpl<K, V, OK, OV> implements KafkaTransactionalPipeline<K, V, OK, OV> {
+
+  private static final long RETRY_BACKOFF_MS = 10;
+  private static final long MAX_RETRY_BACKOFF_MS = 1000;
+
+  private final KafkaReadStream<K, V> source;
+  private final KafkaWriteStream<OK, OV> sink;
+  private final Function<ConsumerRecords<K, V>, Future<List<ProducerRecord<OK, OV>>>> transform;
+  private final AtomicLong transactions = new AtomicLong();
+  private volatile int maxRecords = DEFAULT_MAX_RECORDS;
+  private volatile long maxInterval = DEFAULT_MAX_INTERVAL.toNanos();
+  private volatile Duration pollTimeout = DEFAULT_MAX_INTERVAL;
+  private volatile int maxRetries = DEFAULT_MAX_RETRIES;
+  private volatile Handler<Throwable> exceptionHandler;
+
+  // the ongoing transaction: the offsets to commit and the offsets to seek to when it is aborted
+  private final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+  private final Map<TopicPartition, Long> rewind = new HashMap<>();
+  private int records;
+  private long firstRecordTime;
+  private ConsumerGroupMetadata groupMetadata; // Of the last poll with records
+  private int aborts; // Consecutive aborted transactions
+  private Throwable revocationFailure; // Set on the consumer thread when the transaction could not be committed on revocation
+
+  private boolean started;
+  private boolean running;
+  private Throwable failure;
+  private Promise<Void> stopPromise;
+
+  public KafkaTransactionalPipelineImpl(KafkaReadStream<K, V> source,
+                                        KafkaWriteStream<OK, OV> sink,
+                                        Function<ConsumerRecords<K, V>, Future<List<ProducerRecord<OK, OV>>>> transform) {
+    this.source = Objects.requireNonNull(source, "source");
+    this.sink = Objects.requireNonNull(sink, "sink");
+    this.transform = Objects.requireNonNull(transform, "transform");
+  }
+
+  @Override
+  public KafkaTransactionalPipelineImpl<K, V, OK, OV> maxRecords(int maxRecords) {
+    if (maxRecords < 1) {
+      throw new IllegalArgumentException("Invalid max records " + maxRecords);
+    }
+    this.maxRecords = maxRecords;
+    return this;
+  }
+
+  @Override
+  public KafkaTransactionalPipelineImpl<K, V, OK, OV> maxInterval(Duration maxInterval) {
+    this.maxInterval = maxInterval.toNanos();
+    return this;
+  }
+
+  @Override
+  public KafkaTransactionalPipelineImpl<K, V, OK, OV> pollTimeout(Duration pollTimeout) {
+    this.pollTimeout = Objects.requireNonNull(pollTimeout, "pollTimeout");
+    return this;
+  }
+
+  @Override
+  public KafkaTransactionalPipelineImpl<K, V, OK, OV> maxRetries(int maxRetries) {
+    if (maxRetries < 0) {
+      throw new IllegalArgumentException("Invalid max retries " + maxRetries);
+    }
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  @Override
+  public KafkaTransactionalPipelineImpl<K, V, OK, OV> exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public Future<Void> start() {
+    synchronized (this) {
+      if (this.started) {
+        return Future.failedFuture(new IllegalStateException("Pipeline already started"));
+      }
+      this.started = true;
+      this.running = true;
+    }
+    this.revocationHandler(this::revoked);
+    return this.sink.initTransactions()
+      .compose(v -> this.sink.beginTransaction())
+      .andThen(ar -> {
+        if (ar.succeeded()) {
+          this.poll();
+        } else {
+          this.stopped(ar.cause());
+        }
+      });
+  }
+
+  @Override
+  public synchronized Future<Void> stop() {
+    if (this.stopPromise == null) {
+      this.stopPromise = Promise.promise();
+      if (!this.running) {
+        if (this.failure != null) {
+          this.stopPromise.fail(this.failure);
+        } else {
+          this.stopPromise.complete();
+        }
+      }
+    }
+    return this.stopPromise.future();
+  }
+
+  @Override
+  public long transactions() {
+    return this.transactions.get();
+  }
+
+  private void poll() {
+    Promise<Void> stop;
+    synchronized (this) {
+      stop = this.stopPromise;
+    }
+    if (stop != null) {
+      this.commit()
+        .recover(err -> this.sink.abortTransaction().transform(ar -> Future.failedFuture(err)))
+        .onComplete(ar -> {
+          synchronized (this) {
+            this.running = false;
+          }
+          this.revocationHandler(null);
+          stop.handle(ar);
+        });
+      return;
+    }
+    this.source.poll(this.pollTimeout)
+      .compose(this::captureGroupMetadata)
+      .compose(this::process)
+      .compose(v -> {
+        if (this.records >= this.maxRecords || (this.records > 0 && System.nanoTime() - this.firstRecordTime >= this.maxInterval)) {
+          return this.commit().compose(v2 -> this.sink.beginTransaction());
+        }
+        return Future.succeededFuture();
+      })
+      .onComplete(ar -> {
+        if (ar.succeeded()) {
+          this.poll();
+        } else {
+          this.abort(ar.cause());
+        }
+      });
+  }
+
+  // The group generation can change with any poll, the offsets are sent with the metadata of the last poll
+  private Future<ConsumerRecords<K, V>> captureGroupMetadata(ConsumerRecords<K, V> batch) {
+    Throwable failure = this.revocationFailure;
+    if (failure != null) {
+      // the transaction has been aborted on revocation, the partitions kept have been rewound
+      this.revocationFailure = null;
+      this.report(failure);
+    }
+    if (batch.isEmpty()) {
+      return Future.succeededFuture(batch);
+    }
+    return this.source.groupMetadata().map(groupMetadata -> {
+      this.groupMetadata = groupMetadata;
+      return batch;
+    });
+  }
+
+  /**
+   * Called on the consumer thread, during a poll of the loop, before the partitions are revoked: the ongoing
+   * transaction is committed so that the next owner of the partitions starts after its records, when the commit fails
+   * the transaction is aborted and the partitions kept are rewound.
+   */
+  private void revoked(Collection<TopicPartition> partitions) {
+    if (this.records == 0) {
+      return;
+    }
+    Consumer<K, V> consumer = this.source.unwrap();
+    Producer<OK, OV> producer = this.sink.unwrap();
+    try {
+      producer.sendOffsetsToTransaction(new HashMap<>(this.offsets), consumer.groupMetadata());
+      producer.commitTransaction();
+      this.transactions.incrementAndGet();
+      this.aborts = 0;
+    } catch (Exception e) {
+      this.revocationFailure = e;
+      try {
+        producer.abortTransaction();
+      } catch (Exception ignore) {
+        // the next transaction fails and stops the pipeline
+      }
+      Set<TopicPartition> assignment = consumer.assignment();
+      this.rewind.forEach((partition, offset) -> {
+        if (assignment.contains(partition) && !partitions.contains(partition)) {
+          consumer.seek(partition, offset);
+        }
+      });
+    }
+    this.reset();
+    producer.beginTransaction();
+  }
+
+  private Future<Void> process(ConsumerRecords<K, V> batch) {
+    if (batch.isEmpty()) {
+      return Future.succeededFuture();
+    }
+    // the batch belongs to the transaction before it is transformed, so that an abort rewinds it
+    if (this.records == 0) {
+      this.firstRecordTime = System.nanoTime();
+    }
+    this.records += batch.count();
+    for (TopicPartition partition : batch.partitions()) {
+      List<ConsumerRecord<K, V>> partitionRecords = batch.records(partition);
+      ConsumerRecord<K, V> last = partitionRecords.get(partitionRecords.size() - 1);
+      this.rewind.putIfAbsent(partition, partitionRecords.get(0).offset());
+      this.offsets.put(partition, new OffsetAndMetadata(last.offset() + 1, last.leaderEpoch(), ""));
+    }
+    Future<List<ProducerRecord<OK, OV>>> output;
+    try {
+      output = this.transform.apply(batch);
+    } catch (Exception e) {
+      output = Future.failedFuture(e);
+    }
+    return output.compose(list -> list == null || list.isEmpty() ? Future.succeededFuture() : this.sink.sendBatch(list).mapEmpty());
+  }
+
+  private Future<Void> commit() {
+    Future<Void> sent;
+    if (this.offsets.isEmpty()) {
+      sent = Future.succeededFuture();
+    } else {
+      Map<TopicPartition, OffsetAndMetadata> committed = new HashMap<>(this.offsets);
+      sent = this.sink.sendOffsetsToTransaction(committed, this.groupMetadata);
+    }
+    return sent
+      .compose(v -> this.sink.commitTransaction())
+      .andThen(ar -> {
+        if (ar.succeeded()) {
+          if (this.records > 0) {
+            this.transactions.incrementAndGet();
+            this.aborts = 0;
+          }
+          this.reset();
+        }
+      });
+  }
+
+  private void abort(Throwable cause) {
+    Map<TopicPartition, Long> positions = new HashMap<>(this.rewind);
+    this.reset();
+    if (++this.aborts > this.maxRetries) {
+      // stopped reports the cause
+      this.sink.abortTransaction().onComplete(ar -> this.stopped(cause));
+      return;
+    }
+    this.report(cause);
+    long backoff = Math.min(MAX_RETRY_BACKOFF_MS, RETRY_BACKOFF_MS << Math.min(this.aborts - 1, 16));
+    this.sink.abortTransaction()
+      .compose(v -> this.source.assignment())
+      .compose(assignment -> {
+        // a partition revoked since the transaction began is consumed again by its new owner
+        List<Future<Void>> seeks = new ArrayList<>();
+        positions.forEach((partition, offset) -> {
+          if (assignment.contains(partition)) {
+            seeks.add(this.source.seek(partition, offset));
+          }
+        });
+        return Future.all(seeks);
+      })
+      .compose(v -> this.sink.beginTransaction())
+      .onComplete(ar -> {
+        if (ar.succeeded()) {
+          this.retry(backoff);
+        } else {
+          // the producer cannot start a new transaction, e.g. it has been fenced
+          this.stopped(ar.cause());
+        }
+      });
+  }
+
+  // The transaction is retried after a backoff growing with the consecutive aborts
+  private void retry(long backoff) {
+    Context context = Vertx.currentContext();
+    if (context == null) {
+      this.poll();
+    } else {
+      context.owner().setTimer(backoff, id -> this.poll());
+    }
+  }
+
+  // Only the stream implementation lets the pipeline commit before the revocation completes
+  private void revocationHandler(Handler<Collection<TopicPartition>> handler) {
+    if (this.source instanceof KafkaReadStreamImpl) {
+      ((KafkaReadStreamImpl<K, V>) this.source).revocationHandler(handler);
+    }
+  }
+
+  private void reset() {
+    this.offsets.clear();
+    this.rewind.clear();
+    this.records = 0;
+  }
+
+  private void stopped(Throwable cause) {
+    Promise<Void> stop;
+    synchronized (this) {
+      this.running = false;
+      this.failure = cause;
+      stop = this.stopPromise;
+    }
+    this.revocationHandler(null);
+    this.report(cause);
+    if (stop != null) {
+      stop.tryFail(cause);
+    }
+  }
+
+  private void report(Throwable cause) {
+    Handler<Throwable> handler = this.exceptionHandler;
+    if (handler != null) {
+      handler.handle(cause);
+    }
+  }
+}
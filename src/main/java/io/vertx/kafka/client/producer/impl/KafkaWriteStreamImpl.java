@@ -26,29 +26,60 @@ import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.impl.TaskQueue;
 import io.vertx.core.impl.VertxInternal;
 import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.common.impl.SerialExecutor;
+import io.vertx.kafka.client.common.impl.VirtualThreads;
 import io.vertx.kafka.client.common.tracing.ProducerTracer;
 import io.vertx.kafka.client.producer.KafkaWriteStream;
+import io.vertx.kafka.client.producer.RecordSizeEstimator;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Kafka write stream implementation
  */
 public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
 
-  private long maxSize = DEFAULT_MAX_SIZE;
-  private long pending;
+  private static final long DEFAULT_METADATA_MAX_IDLE_MS = 5 * 60 * 1000L;
+  private static final long DEFAULT_BUFFER_MEMORY = 32 * 1024 * 1024L;
+
+  private volatile long maxSize = DEFAULT_MAX_SIZE;
+  private volatile int maxRecords = DEFAULT_MAX_RECORDS;
+  private final AtomicLong pending = new AtomicLong();
+  private final AtomicInteger pendingRecords = new AtomicInteger();
+  private volatile RecordSizeEstimator<K, V> sizeEstimator = RecordSizeEstimator.defaultEstimator();
   private final Producer<K, V> producer;
-  private Handler<Void> drainHandler;
-  private Handler<Throwable> exceptionHandler;
+  private final AtomicReference<Handler<Void>> drainHandler = new AtomicReference<>();
+  private volatile Handler<Throwable> exceptionHandler;
   private final VertxInternal vertx;
   private final ProducerTracer tracer;
   private final TaskQueue taskQueue;
+  private final Executor lane; // Runs the blocking calls on virtual threads when enabled
+  private final boolean nonBlockingSend;
+  private final Map<String, Long> cachedTopics; // topics with metadata known to be cached by the producer, with the time of their last send
+  private final long metadataTtl; // nanos a topic stays cached after a send, well within metadata.max.idle.ms
+  private final long bufferThreshold; // pending bytes beyond which buffer.memory might be exhausted
+  private final AtomicInteger blockingTasks = new AtomicInteger(); // blocking calls waiting for or running on a worker
 
   public KafkaWriteStreamImpl(Vertx vertx, Producer<K, V> producer, KafkaClientOptions options) {
     ContextInternal ctxInt = ((ContextInternal) vertx.getOrCreateContext()).unwrap();
@@ -56,79 +87,345 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
     this.vertx = (VertxInternal) vertx;
     this.tracer = ProducerTracer.create(ctxInt.tracer(), options);
     this.taskQueue = new TaskQueue();
+    this.lane = options.isUseVirtualThreads() ? new SerialExecutor(VirtualThreads.executor()) : null;
+    this.nonBlockingSend = options.isNonBlockingSend();
+    this.cachedTopics = this.nonBlockingSend ? new ConcurrentHashMap<>() : null;
+    Map<String, Object> config = options.getConfig();
+    this.metadataTtl = TimeUnit.MILLISECONDS.toNanos(longConfig(config, ProducerConfig.METADATA_MAX_IDLE_CONFIG, DEFAULT_METADATA_MAX_IDLE_MS) / 2);
+    this.bufferThreshold = longConfig(config, ProducerConfig.BUFFER_MEMORY_CONFIG, DEFAULT_BUFFER_MEMORY) / 2;
   }
 
-  private int len(Object value) {
-    if (value instanceof byte[]) {
-      return ((byte[])value).length;
+  private static long longConfig(Map<String, Object> config, String name, long defaultValue) {
+    Object value = config != null ? config.get(name) : null;
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
     } else if (value instanceof String) {
-      return ((String)value).length();
-    } else {
-      return 1;
+      return Long.parseLong(((String) value).trim());
     }
+    return defaultValue;
+  }
+
+  private int len(ProducerRecord<K, V> record) {
+    return this.sizeEstimator.size(record);
   }
 
   @Override
   public Future<RecordMetadata> send(ProducerRecord<K, V> record) {
     ContextInternal ctx = vertx.getOrCreateContext();
     ProducerTracer.StartedSpan startedSpan = this.tracer == null ? null : this.tracer.prepareSendMessage(ctx, record);
-    int len = this.len(record.value());
-    this.pending += len;
-    return ctx.executeBlocking(() -> {
+    int len;
+    try {
+      len = this.len(record);
+    } catch (Exception e) {
+      if (startedSpan != null) {
+        startedSpan.fail(ctx, e);
+      }
+      this.reportFailure(ctx, e);
+      return ctx.failedFuture(e);
+    }
+    Reservation reservation = this.reserve(ctx, len, 1);
+    if (this.canSendDirectly(record)) {
+      // the topic metadata is cached and no previous call is waiting for a worker: the producer does not block
       Promise<RecordMetadata> prom = ctx.promise();
-      try {
-        this.producer.send(record, (metadata, err) -> {
-
-          // callback from Kafka IO thread
-          ctx.runOnContext(v1 -> {
-            synchronized (KafkaWriteStreamImpl.this) {
-
-              // if exception happens, no record written
-              if (err != null) {
-
-                if (this.exceptionHandler != null) {
-                  Handler<Throwable> exceptionHandler = this.exceptionHandler;
-                  ctx.runOnContext(v2 -> exceptionHandler.handle(err));
-                }
-              }
-
-              long lowWaterMark = this.maxSize / 2;
-              this.pending -= len;
-              if (this.pending < lowWaterMark && this.drainHandler != null) {
-                Handler<Void> drainHandler = this.drainHandler;
-                this.drainHandler = null;
-                ctx.runOnContext(drainHandler);
-              }
-            }
-          });
-
-          if (err != null) {
-            if (startedSpan != null) {
-              startedSpan.fail(ctx, err);
-            }
-            prom.fail(err);
-          } else {
-            if (startedSpan != null) {
-              startedSpan.finish(ctx);
-            }
-            prom.complete(metadata);
+      this.doSend(ctx, record, reservation, startedSpan, prom);
+      return prom.future();
+    }
+    return this.executeBlocking(ctx, () -> {
+      Promise<RecordMetadata> prom = ctx.promise();
+      this.doSend(ctx, record, reservation, startedSpan, prom);
+      return prom.future();
+    })
+      .compose(f -> f)
+      .andThen(ar -> {
+        if (ar.failed()) {
+          // the task might not have run, the reservation is released once
+          reservation.release(ar.cause());
+        }
+      });
+  }
+
+  @Override
+  public Future<List<RecordMetadata>> sendBatch(List<ProducerRecord<K, V>> records) {
+    ContextInternal ctx = vertx.getOrCreateContext();
+    if (records.isEmpty()) {
+      return ctx.succeededFuture(Collections.emptyList());
+    }
+    int[] lens = new int[records.size()];
+    long len = 0;
+    boolean direct = this.nonBlockingSend && this.blockingTasks.get() == 0;
+    long now = direct ? System.nanoTime() : 0L;
+    try {
+      for (int i = 0;i < lens.length;i++) {
+        ProducerRecord<K, V> record = records.get(i);
+        lens[i] = this.len(record);
+        len += lens[i];
+        if (direct && !this.isCached(record.topic(), now)) {
+          direct = false;
+        }
+      }
+    } catch (Exception e) {
+      this.reportFailure(ctx, e);
+      return ctx.failedFuture(e);
+    }
+    Reservation reservation = this.reserve(ctx, len, records.size());
+    direct &= !this.nearBufferMemory();
+    BatchSend batch = new BatchSend(ctx, records, lens, reservation);
+    if (direct) {
+      batch.send();
+      return batch.promise.future();
+    }
+    return this.executeBlocking(ctx, () -> {
+      batch.send();
+      return batch.promise.future();
+    })
+      .compose(f -> f)
+      .andThen(ar -> {
+        if (ar.failed()) {
+          reservation.release(ar.cause());
+        }
+      });
+  }
+
+  private boolean canSendDirectly(ProducerRecord<K, V> record) {
+    return this.nonBlockingSend
+      && this.blockingTasks.get() == 0
+      && this.isCached(record.topic(), System.nanoTime())
+      && !this.nearBufferMemory();
+  }
+
+  /**
+   * The producer drops the metadata of a topic not used for {@code metadata.max.idle.ms}, a topic is considered
+   * cached for half of this duration after its last successful send.
+   */
+  private boolean isCached(String topic, long now) {
+    Long lastSend = this.cachedTopics.get(topic);
+    return lastSend != null && now - lastSend < this.metadataTtl;
+  }
+
+  /**
+   * The producer blocks when its {@code buffer.memory} is exhausted, records are sent from a worker once the
+   * pending records use half of it.
+   */
+  private boolean nearBufferMemory() {
+    return this.pending.get() > this.bufferThreshold;
+  }
+
+  private void doSend(ContextInternal ctx, ProducerRecord<K, V> record, Reservation reservation, ProducerTracer.StartedSpan startedSpan, Promise<RecordMetadata> prom) {
+    try {
+      this.send(record, reservation, reservation.len, (metadata, err) -> {
+
+        this.updateCachedTopics(record, err);
+
+        // callback from Kafka IO thread
+        reservation.release(err);
+
+        if (err != null) {
+          if (startedSpan != null) {
+            startedSpan.fail(ctx, err);
           }
-        });
-      } catch (Throwable e) {
-        synchronized (KafkaWriteStreamImpl.this) {
-          if (this.exceptionHandler != null) {
-            Handler<Throwable> exceptionHandler = this.exceptionHandler;
-            ctx.runOnContext(v3 -> exceptionHandler.handle(e));
+          prom.fail(err);
+        } else {
+          if (startedSpan != null) {
+            startedSpan.finish(ctx);
           }
+          prom.complete(metadata);
+        }
+      });
+    } catch (Throwable e) {
+      // reported to the exception handler
+      reservation.release(e);
+      if (startedSpan != null) {
+        startedSpan.fail(ctx, e);
+      }
+      prom.fail(e);
+    }
+  }
+
+  /**
+   * Hand a record to the producer, when the producer serializes it with the serializers of a
+   * {@link SerializedRecordSizeEstimator} the reservation is corrected with the serialized size of the record.
+   */
+  private void send(ProducerRecord<K, V> record, Reservation reservation, long estimate, Callback callback) {
+    if (!(this.sizeEstimator instanceof SerializedRecordSizeEstimator)) {
+      this.producer.send(record, callback);
+      return;
+    }
+    SerializedRecordSizeEstimator.Measure measure = SerializedRecordSizeEstimator.begin();
+    try {
+      this.producer.send(record, callback);
+    } finally {
+      SerializedRecordSizeEstimator.end(measure);
+    }
+    if (measure.measured()) {
+      reservation.adjust(measure.size() - estimate);
+    }
+  }
+
+  private void updateCachedTopics(ProducerRecord<K, V> record, Throwable err) {
+    if (this.nonBlockingSend) {
+      if (err == null) {
+        this.cachedTopics.put(record.topic(), System.nanoTime());
+      } else {
+        // the metadata might be stale or missing, the next send will use a worker
+        this.cachedTopics.remove(record.topic());
+      }
+    }
+  }
+
+  private Reservation reserve(ContextInternal ctx, long len, int records) {
+    this.pending.addAndGet(len);
+    this.pendingRecords.addAndGet(records);
+    return new Reservation(ctx, len, records);
+  }
+
+  // Can be called from any thread, only the handlers are dispatched on the context
+  private void release(ContextInternal ctx, long len, int records, Throwable err) {
+
+    // if exception happens, no record written
+    if (err != null) {
+      this.reportFailure(ctx, err);
+    }
+
+    this.pending.addAndGet(-len);
+    this.pendingRecords.addAndGet(-records);
+    this.checkDrained(ctx);
+  }
+
+  private void reportFailure(ContextInternal ctx, Throwable err) {
+    Handler<Throwable> exceptionHandler = this.exceptionHandler;
+    if (exceptionHandler != null) {
+      ctx.runOnContext(v2 -> exceptionHandler.handle(err));
+    }
+  }
+
+  void handleException(Throwable err) {
+    this.reportFailure(vertx.getOrCreateContext(), err);
+  }
+
+  /**
+   * Call the drain handler when the write queue is under its low watermarks. The handler is claimed with
+   * an atomic swap so it is called once, and this check runs both after releasing records and after setting
+   * the handler so a queue draining concurrently with {@link #drainHandler(Handler)} cannot be missed.
+   */
+  private void checkDrained(ContextInternal ctx) {
+    if (this.drainHandler.get() != null
+      && this.pending.get() < this.maxSize / 2
+      && this.pendingRecords.get() < this.maxRecords / 2) {
+      Handler<Void> handler = this.drainHandler.getAndSet(null);
+      if (handler != null) {
+        ctx.runOnContext(handler);
+      }
+    }
+  }
+
+  /**
+   * The bytes and records of a send reserved in the write queue, the reservation is released exactly once
+   * whether the send completes, fails synchronously or never runs.
+   */
+  private class Reservation {
+
+    private final ContextInternal ctx;
+    private final int records;
+    private long len;
+    private boolean released;
+
+    private Reservation(ContextInternal ctx, long len, int records) {
+      this.ctx = ctx;
+      this.len = len;
+      this.records = records;
+    }
+
+    private synchronized void adjust(long delta) {
+      if (!this.released) {
+        this.len += delta;
+        pending.addAndGet(delta);
+      }
+    }
+
+    private void release(Throwable err) {
+      long released;
+      synchronized (this) {
+        if (this.released) {
+          return;
+        }
+        this.released = true;
+        released = this.len;
+      }
+      KafkaWriteStreamImpl.this.release(this.ctx, released, this.records, err);
+    }
+  }
+
+  /**
+   * A batch of records handed to the producer at once, the completions are tracked with a single counter
+   * and the batch is released from the write queue when all the records are completed.
+   */
+  private class BatchSend {
+
+    private final ContextInternal ctx;
+    private final List<ProducerRecord<K, V>> records;
+    private final int[] lens;
+    private final Reservation reservation;
+    private final RecordMetadata[] results;
+    private final ProducerTracer.StartedSpan[] startedSpans;
+    private final AtomicInteger remaining;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Promise<List<RecordMetadata>> promise;
+
+    private BatchSend(ContextInternal ctx, List<ProducerRecord<K, V>> records, int[] lens, Reservation reservation) {
+      this.ctx = ctx;
+      this.records = records;
+      this.lens = lens;
+      this.reservation = reservation;
+      this.results = new RecordMetadata[records.size()];
+      this.remaining = new AtomicInteger(records.size());
+      this.promise = ctx.promise();
+      if (tracer != null) {
+        startedSpans = new ProducerTracer.StartedSpan[records.size()];
+        for (int i = 0;i < startedSpans.length;i++) {
+          startedSpans[i] = tracer.prepareSendMessage(ctx, records.get(i));
         }
-        if (startedSpan != null) {
-          startedSpan.fail(ctx, e);
+      } else {
+        startedSpans = null;
+      }
+    }
+
+    private void send() {
+      for (int i = 0;i < results.length;i++) {
+        int index = i;
+        ProducerRecord<K, V> record = records.get(i);
+        try {
+          KafkaWriteStreamImpl.this.send(record, reservation, lens[i], (metadata, err) -> complete(index, metadata, err));
+        } catch (Throwable e) {
+          complete(index, null, e);
         }
-        prom.fail(e);
       }
-      return prom.future();
-    }, taskQueue)
-      .compose(f -> f);
+    }
+
+    private void complete(int index, RecordMetadata metadata, Throwable err) {
+      updateCachedTopics(records.get(index), err);
+      if (startedSpans != null) {
+        if (err != null) {
+          startedSpans[index].fail(ctx, err);
+        } else {
+          startedSpans[index].finish(ctx);
+        }
+      }
+      if (err != null) {
+        failure.compareAndSet(null, err);
+      } else {
+        results[index] = metadata;
+      }
+      if (remaining.decrementAndGet() == 0) {
+        // callback from Kafka IO thread
+        Throwable cause = failure.get();
+        reservation.release(cause);
+        if (cause != null) {
+          promise.fail(cause);
+        } else {
+          promise.complete(Arrays.asList(results));
+        }
+      }
+    }
   }
 
   @Override
@@ -143,13 +440,28 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
   }
 
   @Override
-  public synchronized boolean writeQueueFull() {
-    return (this.pending >= this.maxSize);
+  public KafkaWriteStreamImpl<K, V> setWriteQueueMaxRecords(int records) {
+    this.maxRecords = records;
+    return this;
   }
 
   @Override
-  public synchronized KafkaWriteStreamImpl<K, V> drainHandler(Handler<Void> handler) {
-    this.drainHandler = handler;
+  public KafkaWriteStreamImpl<K, V> sizeEstimator(RecordSizeEstimator<K, V> estimator) {
+    this.sizeEstimator = estimator == null ? RecordSizeEstimator.defaultEstimator() : estimator;
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return (this.pending.get() >= this.maxSize || this.pendingRecords.get() >= this.maxRecords);
+  }
+
+  @Override
+  public KafkaWriteStreamImpl<K, V> drainHandler(Handler<Void> handler) {
+    this.drainHandler.set(handler);
+    if (handler != null) {
+      this.checkDrained(vertx.getOrCreateContext());
+    }
     return this;
   }
 
@@ -180,6 +492,11 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
     return executeBlocking(this.producer::abortTransaction);
   }
 
+  @Override
+  public Future<Void> sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata) {
+    return executeBlocking(() -> this.producer.sendOffsetsToTransaction(offsets, groupMetadata));
+  }
+
   @Override
   public KafkaWriteStreamImpl<K, V> exceptionHandler(Handler<Throwable> handler) {
     this.exceptionHandler = handler;
@@ -189,16 +506,30 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
   @Override
   public Future<List<PartitionInfo>> partitionsFor(String topic) {
     ContextInternal ctx = vertx.getOrCreateContext();
-    return ctx.executeBlocking(() -> this.producer.partitionsFor(topic), taskQueue);
+    return this.executeBlocking(ctx, () -> {
+      List<PartitionInfo> partitions = this.producer.partitionsFor(topic);
+      if (this.nonBlockingSend) {
+        this.cachedTopics.put(topic, System.nanoTime());
+      }
+      return partitions;
+    });
   }
 
   @Override
   public Future<Void> flush() {
     ContextInternal ctx = vertx.getOrCreateContext();
-    return ctx.executeBlocking(() -> {
+    return this.executeBlocking(ctx, () -> {
       this.producer.flush();
       return null;
-    }, taskQueue);
+    });
+  }
+
+  @Override
+  public Flow.Subscriber<ProducerRecord<K, V>> toSubscriber(int maxInFlight) {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("Invalid max in flight records " + maxInFlight);
+    }
+    return new WriteStreamSubscriber<>(this, maxInFlight);
   }
 
   @Override
@@ -209,14 +540,14 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
   @Override
   public Future<Void> close(long timeout) {
     ContextInternal ctx = vertx.getOrCreateContext();
-    return ctx.executeBlocking(() -> {
+    return this.executeBlocking(ctx, () -> {
       if (timeout > 0) {
         this.producer.close(Duration.ofMillis(timeout));
       } else {
         this.producer.close();
       }
       return null;
-    }, taskQueue);
+    });
   }
 
   @Override
@@ -224,12 +555,46 @@ public class KafkaWriteStreamImpl<K, V> implements KafkaWriteStream<K, V> {
     return this.producer;
   }
 
+  /**
+   * Run a blocking call to the producer, the calls are executed one at a time and in order either on the
+   * Vert.x worker pool or on virtual threads. With non-blocking sends the calls are counted until they have run, so
+   * that a record is only sent directly when it cannot overtake a call queued before, e.g. a transaction begin or a
+   * flush.
+   */
+  private <T> Future<T> executeBlocking(ContextInternal ctx, Callable<T> call) {
+    Callable<T> blockingCall;
+    if (this.nonBlockingSend) {
+      this.blockingTasks.incrementAndGet();
+      blockingCall = () -> {
+        try {
+          return call.call();
+        } finally {
+          this.blockingTasks.decrementAndGet();
+        }
+      };
+    } else {
+      blockingCall = call;
+    }
+    if (this.lane == null) {
+      return ctx.executeBlocking(blockingCall, this.taskQueue);
+    }
+    Promise<T> promise = ctx.promise();
+    this.lane.execute(() -> {
+      try {
+        promise.complete(blockingCall.call());
+      } catch (Throwable t) {
+        promise.fail(t);
+      }
+    });
+    return promise.future();
+  }
+
   Future<Void> executeBlocking(final BlockingStatement statement) {
     ContextInternal ctx = vertx.getOrCreateContext();
-    return ctx.executeBlocking(() -> {
+    return this.executeBlocking(ctx, () -> {
       statement.execute();
       return null;
-    }, taskQueue);
+    });
   }
 
   @FunctionalInterface
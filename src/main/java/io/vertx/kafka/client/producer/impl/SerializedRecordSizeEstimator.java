@@ -0,0 +1,133 @@
+/*
+ * Copyright 2023 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.producer.impl;
+
+import io.vertx.kafka.client.producer.RecordSizeEstimator;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * Reports the size of a record as serialized by the producer: the serializers of the estimator wrap the serializers
+ * of the producer and record the size of their output while the write stream hands a record to the producer.
+ * <p>
+ * Until the record is serialized its size is estimated by the {@link RecordSizeEstimator#defaultEstimator()}.
+ */
+public class SerializedRecordSizeEstimator<K, V> implements RecordSizeEstimator.Serialized<K, V> {
+
+  private static final ThreadLocal<Measure> CURRENT = ThreadLocal.withInitial(Measure::new);
+
+  /**
+   * Start measuring the records serialized by the current thread.
+   */
+  static Measure begin() {
+    Measure measure = CURRENT.get();
+    measure.active = true;
+    measure.measured = false;
+    measure.size = 0;
+    return measure;
+  }
+
+  static void end(Measure measure) {
+    measure.active = false;
+  }
+
+  /**
+   * The serialized size of a record, only accessed by the thread sending the record.
+   */
+  static final class Measure {
+
+    private boolean active;
+    private boolean measured;
+    private int size;
+
+    boolean measured() {
+      return measured;
+    }
+
+    int size() {
+      // a record always counts for at least one byte, like the default estimator
+      return Math.max(1, size);
+    }
+
+    private void record(byte[] bytes) {
+      if (active) {
+        measured = true;
+        size += bytes == null ? 0 : bytes.length;
+      }
+    }
+  }
+
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+
+  public SerializedRecordSizeEstimator(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    this.keySerializer = new MeasuringSerializer<>(keySerializer);
+    this.valueSerializer = new MeasuringSerializer<>(valueSerializer);
+  }
+
+  @Override
+  public Serializer<K> keySerializer() {
+    return keySerializer;
+  }
+
+  @Override
+  public Serializer<V> valueSerializer() {
+    return valueSerializer;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public int size(ProducerRecord<K, V> record) {
+    return DefaultRecordSizeEstimator.INSTANCE.size((ProducerRecord<Object, Object>) (ProducerRecord<?, ?>) record);
+  }
+
+  private static class MeasuringSerializer<T> implements Serializer<T> {
+
+    private final Serializer<T> delegate;
+
+    MeasuringSerializer(Serializer<T> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+      delegate.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+      byte[] bytes = delegate.serialize(topic, data);
+      CURRENT.get().record(bytes);
+      return bytes;
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, T data) {
+      byte[] bytes = delegate.serialize(topic, headers, data);
+      CURRENT.get().record(bytes);
+      return bytes;
+    }
+
+    @Override
+    public void close() {
+      delegate.close();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.producer.impl;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link Flow.Subscriber} writing records to a {@link KafkaWriteStreamImpl}, at most {@code maxInFlight} records are
+ * requested and not yet acknowledged by the producer. A failed write cancels the subscription, the failures of the
+ * writes and of the publisher are reported to the exception handler of the stream. Once the publisher completes and
+ * the records in flight are written, the stream is flushed then ended.
+ */
+class WriteStreamSubscriber<K, V> implements Flow.Subscriber<ProducerRecord<K, V>> {
+
+  private final KafkaWriteStreamImpl<K, V> stream;
+  private final int maxInFlight;
+  private final AtomicBoolean done = new AtomicBoolean();
+  private final AtomicBoolean completed = new AtomicBoolean();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile Flow.Subscription subscription;
+
+  WriteStreamSubscriber(KafkaWriteStreamImpl<K, V> stream, int maxInFlight) {
+    this.stream = stream;
+    this.maxInFlight = maxInFlight;
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    Objects.requireNonNull(subscription, "subscription");
+    if (this.subscription != null) {
+      // a subscriber is subscribed once
+      subscription.cancel();
+      return;
+    }
+    this.subscription = subscription;
+    subscription.request(maxInFlight);
+  }
+
+  @Override
+  public void onNext(ProducerRecord<K, V> record) {
+    Objects.requireNonNull(record, "record");
+    inFlight.incrementAndGet();
+    stream.write(record).onComplete(ar -> {
+      if (ar.succeeded()) {
+        if (!done.get()) {
+          subscription.request(1L);
+        }
+      } else if (done.compareAndSet(false, true)) {
+        // the stream reports the failure to its exception handler
+        subscription.cancel();
+      }
+      if (inFlight.decrementAndGet() == 0 && completed.get()) {
+        end();
+      }
+    });
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    Objects.requireNonNull(throwable, "throwable");
+    done.set(true);
+    stream.handleException(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    completed.set(true);
+    if (inFlight.get() == 0) {
+      end();
+    }
+  }
+
+  private void end() {
+    if (completed.compareAndSet(true, false)) {
+      stream.flush()
+        .compose(v -> stream.end())
+        .onFailure(stream::handleException);
+    }
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertx.kafka.client.serialization;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A {@link BinarySchema} compiled to encode and decode records.
+ * <p>
+ * A record is a magic byte, the schema id on 4 bytes, then for each field a presence byte followed by its value:
+ * zigzag varints for integers, 8 bytes for doubles, a varint length followed by the bytes for strings (UTF-8) and
+ * byte arrays.
+ */
+class BinaryCodec {
+
+  static final byte MAGIC = 0;
+  static final int HEADER_SIZE = 5;
+
+  private final int id;
+  private final String[] names;
+  private final BinarySchema.Type[] types;
+
+  BinaryCodec(BinarySchema schema) {
+    List<BinarySchema.Field> fields = schema.fields();
+    this.id = schema.id();
+    this.names = new String[fields.size()];
+    this.types = new BinarySchema.Type[fields.size()];
+    for (int i = 0;i < names.length;i++) {
+      names[i] = fields.get(i).name();
+      types[i] = fields.get(i).type();
+    }
+  }
+
+  /**
+   * @return the schema id of an encoded record
+   */
+  static int schemaId(byte[] data) {
+    if (data.length < HEADER_SIZE || data[0] != MAGIC) {
+      throw new DecodeException("Not a compact binary record");
+    }
+    return ((data[1] & 0xFF) << 24) | ((data[2] & 0xFF) << 16) | ((data[3] & 0xFF) << 8) | (data[4] & 0xFF);
+  }
+
+  byte[] encode(JsonObject json) {
+    Writer writer = new Writer(HEADER_SIZE + 8 * names.length);
+    writer.write(MAGIC);
+    writer.write((byte) (id >>> 24));
+    writer.write((byte) (id >>> 16));
+    writer.write((byte) (id >>> 8));
+    writer.write((byte) id);
+    for (int i = 0;i < names.length;i++) {
+      Object value = json.getValue(names[i]);
+      if (value == null) {
+        writer.write((byte) 0);
+        continue;
+      }
+      writer.write((byte) 1);
+      try {
+        switch (types[i]) {
+          case BOOLEAN:
+            writer.write((byte) ((Boolean) value ? 1 : 0));
+            break;
+          case INT:
+            long v = ((Number) value).longValue();
+            if (v != (int) v) {
+              throw new EncodeException("Field " + names[i] + " is out of int range: " + value);
+            }
+            writer.writeVarLong((v << 1) ^ (v >> 63));
+            break;
+          case LONG:
+            long l = ((Number) value).longValue();
+            writer.writeVarLong((l << 1) ^ (l >> 63));
+            break;
+          case DOUBLE:
+            long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+            for (int shift = 56;shift >= 0;shift -= 8) {
+              writer.write((byte) (bits >>> shift));
+            }
+            break;
+          case STRING:
+            writer.writeBytes(value.toString().getBytes(StandardCharsets.UTF_8));
+            break;
+          case BYTES:
+            writer.writeBytes(json.getBinary(names[i]));
+            break;
+        }
+      } catch (EncodeException e) {
+        throw e;
+      } catch (ClassCastException e) {
+        throw new EncodeException("Field " + names[i] + " is not a " + types[i].name().toLowerCase(Locale.ROOT) + ": " + value, e);
+      } catch (RuntimeException e) {
+        throw new EncodeException("Failed to encode field " + names[i] + ": " + e.getMessage(), e);
+      }
+    }
+    return writer.toByteArray();
+  }
+
+  JsonObject decode(byte[] data) {
+    Map<String, Object> map = new LinkedHashMap<>(Math.max(16, names.length * 2));
+    int[] pos = { HEADER_SIZE };
+    int i = 0;
+    try {
+      for (;i < names.length;i++) {
+        if (data[pos[0]++] == 0) {
+          map.put(names[i], null);
+          continue;
+        }
+        Object value;
+        switch (types[i]) {
+          case BOOLEAN:
+            value = data[pos[0]++] != 0;
+            break;
+          case INT:
+            long n = readVarLong(data, pos);
+            long k = (n >>> 1) ^ -(n & 1);
+            if (k != (int) k) {
+              throw new DecodeException("Field " + names[i] + " is out of int range: " + k);
+            }
+            value = (int) k;
+            break;
+          case LONG:
+            long m = readVarLong(data, pos);
+            value = (m >>> 1) ^ -(m & 1);
+            break;
+          case DOUBLE:
+            long bits = 0L;
+            for (int j = 0;j < 8;j++) {
+              bits = (bits << 8) | (data[pos[0]++] & 0xFF);
+            }
+            value = Double.longBitsToDouble(bits);
+            break;
+          case STRING:
+            int len = (int) readVarLong(data, pos);
+            value = new String(data, pos[0], len, StandardCharsets.UTF_8);
+            pos[0] += len;
+            break;
+          default:
+            int size = (int) readVarLong(data, pos);
+            value = Arrays.copyOfRange(data, pos[0], pos[0] + size);
+            pos[0] += size;
+            break;
+        }
+        map.put(names[i], value);
+      }
+    } catch (DecodeException e) {
+      throw e;
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new DecodeException("Truncated compact binary record at field " + names[i], e);
+    } catch (RuntimeException e) {
+      // corrupted lengths
+      throw new DecodeException("Failed to decode field " + names[i] + ": " + e.getMessage(), e);
+    }
+    return new JsonObject(map);
+  }
+
+  private static long readVarLong(byte[] data, int[] pos) {
+    long value = 0L;
+    int shift = 0;
+    byte b;
+    do {
+      b = data[pos[0]++];
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+
+  private static class Writer {
+
+    private byte[] bytes;
+    private int size;
+
+    Writer(int capacity) {
+      bytes = new byte[capacity];
+    }
+
+    void write(byte b) {
+      if (size == bytes.length) {
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+      }
+      bytes[size++] = b;
+    }
+
+    void writeVarLong(long value) {
+      while ((value & ~0x7FL) != 0L) {
+        write((byte) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      write((byte) value);
+    }
+
+    void writeBytes(byte[] value) {
+      writeVarLong(value.length);
+      if (size + value.length > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + value.length));
+      }
+      System.arraycopy(value, 0, bytes, size, value.length);
+      size += value.length;
+    }
+
+    byte[] toByteArray() {
+      return size == bytes.length ? bytes : Arrays.copyOf(bytes, size);
+    }
+  }
+
+  /**
+   * An LRU cache of the codecs compiled from the schemas of a resolver.
+   */
+  static class Cache {
+
+    private final SchemaResolver resolver;
+    private final Map<Integer, BinaryCodec> byId; // Guarded by this
+    private final Map<String, BinaryCodec> byTopic; // Guarded by this
+
+    Cache(SchemaResolver resolver, int maxSize) {
+      this.resolver = resolver;
+      this.byId = lru(maxSize);
+      this.byTopic = lru(maxSize);
+    }
+
+    private static <K> Map<K, BinaryCodec> lru(int maxSize) {
+      return new LinkedHashMap<K, BinaryCodec>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, BinaryCodec> eldest) {
+          return size() > maxSize;
+        }
+      };
+    }
+
+    BinaryCodec byId(int id) {
+      synchronized (this) {
+        BinaryCodec codec = byId.get(id);
+        if (codec != null) {
+          return codec;
+        }
+      }
+      // resolving may be slow, it is done outside of the lock
+      BinarySchema schema = resolver.byId(id);
+      if (schema == null) {
+        throw new DecodeException("Unknown schema " + id);
+      }
+      BinaryCodec codec = new BinaryCodec(schema);
+      synchronized (this) {
+        byId.put(id, codec);
+      }
+      return codec;
+    }
+
+    BinaryCodec forTopic(String topic) {
+      synchronized (this) {
+        BinaryCodec codec = byTopic.get(topic);
+        if (codec != null) {
+          return codec;
+        }
+      }
+      BinarySchema schema = resolver.forTopic(topic);
+      if (schema == null) {
+        throw new EncodeException("No schema for topic " + topic);
+      }
+      BinaryCodec codec = new BinaryCodec(schema);
+      synchronized (this) {
+        byTopic.put(topic, codec);
+      }
+      return codec;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertx.kafka.client.serialization;
+
+import io.vertx.core.json.JsonObject;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+
+/**
+ * Kafka deserializer reading json objects in the compact binary format, with the schema identified by the record
+ * resolved by a {@link SchemaResolver}. The compiled schemas are kept in an LRU cache.
+ */
+public class BinaryDeserializer implements Deserializer<JsonObject> {
+
+  private final BinaryCodec.Cache codecs;
+
+  public BinaryDeserializer(SchemaResolver resolver) {
+    this(resolver, BinarySerializer.DEFAULT_CACHE_SIZE);
+  }
+
+  public BinaryDeserializer(SchemaResolver resolver, int cacheSize) {
+    this.codecs = new BinaryCodec.Cache(resolver, cacheSize);
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+  }
+
+  @Override
+  public JsonObject deserialize(String topic, byte[] data) {
+    if (data == null)
+      return null;
+
+    return codecs.byId(BinaryCodec.schemaId(data)).decode(data);
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertx.kafka.client.serialization;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The schema of the records of the compact binary serde: an id and an ordered list of typed fields. The binary
+ * body only holds the field values in schema order, field names are never written.
+ * <p>
+ * Its JSON form is {@code {"id":1,"fields":[{"name":"amount","type":"double"}]}}.
+ */
+public class BinarySchema {
+
+  /**
+   * The field types.
+   */
+  public enum Type {
+    BOOLEAN, INT, LONG, DOUBLE, STRING, BYTES
+  }
+
+  /**
+   * A field of a schema.
+   */
+  public static class Field {
+
+    private final String name;
+    private final Type type;
+
+    public Field(String name, Type type) {
+      this.name = name;
+      this.type = type;
+    }
+
+    public String name() {
+      return name;
+    }
+
+    public Type type() {
+      return type;
+    }
+  }
+
+  private final int id;
+  private final List<Field> fields = new ArrayList<>();
+
+  public BinarySchema(int id) {
+    this.id = id;
+  }
+
+  /**
+   * Create a schema from its JSON form.
+   */
+  public static BinarySchema fromJson(JsonObject json) {
+    BinarySchema schema = new BinarySchema(json.getInteger("id"));
+    JsonArray fields = json.getJsonArray("fields", new JsonArray());
+    for (int i = 0;i < fields.size();i++) {
+      JsonObject field = fields.getJsonObject(i);
+      schema.addField(field.getString("name"), Type.valueOf(field.getString("type").toUpperCase(Locale.ROOT)));
+    }
+    return schema;
+  }
+
+  /**
+   * Add a field, fields are encoded in the order they are added.
+   *
+   * @return a reference to this, so the API can be used fluently
+   */
+  public BinarySchema addField(String name, Type type) {
+    fields.add(new Field(name, type));
+    return this;
+  }
+
+  public int id() {
+    return id;
+  }
+
+  public List<Field> fields() {
+    return Collections.unmodifiableList(fields);
+  }
+}
@@ -16,18 +16,50 @@
 
 package io.vertx.kafka.client.serialization;
 
+import io.netty.buffer.Unpooled;
 import io.vertx.core.buffer.Buffer;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Deserializer;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
  * Kafka deserializer for raw bytes in a buffer
+ * <p>
+ * By default the bytes are copied into a new buffer. In wrapping mode the buffer is a view over the deserialized
+ * bytes without copy, such a buffer cannot grow beyond the size of the record. The wrapping mode is enabled
+ * with the {@link #WRAP_CONFIG} property, or {@code key.deserializer.wrap} / {@code value.deserializer.wrap}.
  */
 public class BufferDeserializer implements Deserializer<Buffer> {
 
+  /**
+   * Whether the deserialized buffers wrap the record bytes instead of copying them, {@code false} by default.
+   */
+  public static final String WRAP_CONFIG = "deserializer.wrap";
+
+  private boolean wrap;
+
+  public BufferDeserializer() {
+    this(false);
+  }
+
+  /**
+   * @param wrap whether the deserialized buffers wrap the record bytes instead of copying them
+   */
+  public BufferDeserializer(boolean wrap) {
+    this.wrap = wrap;
+  }
+
   @Override
   public void configure(Map<String, ?> configs, boolean isKey) {
+    Object value = configs.get(isKey ? "key." + WRAP_CONFIG : "value." + WRAP_CONFIG);
+    if (value == null) {
+      value = configs.get(WRAP_CONFIG);
+    }
+    if (value != null) {
+      wrap = value instanceof Boolean ? (Boolean) value : Boolean.parseBoolean(value.toString());
+    }
   }
 
   @Override
@@ -35,9 +67,31 @@ public class BufferDeserializer implements Deserializer<Buffer> {
     if (data == null)
       return null;
 
+    if (wrap) {
+      // the consumer allocates the array of each record, it can be shared with the buffer
+      return Buffer.buffer(Unpooled.wrappedBuffer(data));
+    }
     return Buffer.buffer(data);
   }
 
+  /**
+   * Deserialize from the bytes of the record without copying them to an intermediate array in wrapping mode.
+   * <p>
+   * This overrides the {@code ByteBuffer} variant of {@link Deserializer} used by Kafka clients providing it,
+   * in wrapping mode the buffer shares the memory of the fetched records.
+   */
+  public Buffer deserialize(String topic, Headers headers, ByteBuffer data) {
+    if (data == null)
+      return null;
+
+    if (wrap) {
+      return Buffer.buffer(Unpooled.wrappedBuffer(data.slice()));
+    }
+    byte[] bytes = new byte[data.remaining()];
+    data.duplicate().get(bytes);
+    return Buffer.buffer(bytes);
+  }
+
   @Override
   public void close() {
   }
@@ -16,6 +16,7 @@
 
 package io.vertx.kafka.client.serialization;
 
+import io.netty.buffer.ByteBuf;
 import io.vertx.core.buffer.Buffer;
 import org.apache.kafka.common.serialization.Serializer;
 
@@ -23,6 +24,9 @@ import java.util.Map;
 
 /**
  * Kafka serializer for raw bytes in a buffer
+ * <p>
+ * The bytes of a heap buffer backed by an array of its exact size are not copied, the producer copies them when
+ * the record is appended to a batch.
  */
 public class BufferSerializer implements Serializer<Buffer> {
 
@@ -35,6 +39,10 @@ public class BufferSerializer implements Serializer<Buffer> {
     if (data == null)
       return null;
 
+    ByteBuf buf = data.getByteBuf();
+    if (buf.hasArray() && buf.arrayOffset() + buf.readerIndex() == 0 && buf.array().length == buf.readableBytes()) {
+      return buf.array();
+    }
     return data.getBytes();
   }
 
@@ -16,14 +16,17 @@
 
 package io.vertx.kafka.client.serialization;
 
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Deserializer;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
  * Kafka deserializer for raw bytes in a buffer
+ * <p>
+ * The JSON is parsed straight from the record bytes.
  */
 public class JsonArrayDeserializer implements Deserializer<JsonArray> {
 
@@ -36,7 +39,19 @@ public class JsonArrayDeserializer implements Deserializer<JsonArray> {
     if (data == null)
       return null;
 
-    return Buffer.buffer(data).toJsonArray();
+    return JsonBytes.decode(data, 0, data.length, JsonArray.class);
+  }
+
+  /**
+   * Deserialize from the bytes of the record without copying them to an intermediate array.
+   * <p>
+   * This overrides the {@code ByteBuffer} variant of {@link Deserializer} used by Kafka clients providing it.
+   */
+  public JsonArray deserialize(String topic, Headers headers, ByteBuffer data) {
+    if (data == null)
+      return null;
+
+    return JsonBytes.decode(data, JsonArray.class);
   }
 
   @Override
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.jackson.JacksonCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Encodes JSON straight to UTF-8 bytes and decodes it straight from bytes with Jackson, without an intermediate
+ * {@code String} or buffer.
+ */
+class JsonBytes {
+
+  static final JsonFactory FACTORY = new JsonFactory().configure(JsonParser.Feature.ALLOW_COMMENTS, true);
+
+  static byte[] encode(Object json) {
+    ByteArrayBuilder bytes = new ByteArrayBuilder();
+    try {
+      try (JsonGenerator generator = FACTORY.createGenerator(bytes)) {
+        JacksonCodec.encodeJson(json, generator);
+      }
+      return bytes.toByteArray();
+    } catch (EncodeException e) {
+      // not a basic JSON value (e.g. a POJO), encode it like JsonObject#encode does
+      return Json.CODEC.toBuffer(json, false).getBytes();
+    } catch (IOException e) {
+      throw new EncodeException(e.getMessage(), e);
+    } finally {
+      bytes.release();
+    }
+  }
+
+  static <T> T decode(byte[] data, int offset, int length, Class<T> type) {
+    try {
+      return JacksonCodec.fromParser(FACTORY.createParser(data, offset, length), type);
+    } catch (IOException e) {
+      throw new DecodeException("Failed to decode:" + e.getMessage(), e);
+    }
+  }
+
+  static <T> T decode(ByteBuffer data, Class<T> type) {
+    if (data.hasArray()) {
+      return decode(data.array(), data.arrayOffset() + data.position(), data.remaining(), type);
+    }
+    byte[] bytes = bytes(data);
+    return decode(bytes, 0, bytes.length, type);
+  }
+
+  static byte[] bytes(ByteBuffer data) {
+    byte[] bytes = new byte[data.remaining()];
+    data.duplicate().get(bytes);
+    return bytes;
+  }
+
+  /**
+   * @return the value of a deserializer property, the {@code key.} or {@code value.} prefixed property first
+   */
+  static Object config(Map<String, ?> configs, boolean isKey, String name) {
+    Object value = configs.get((isKey ? "key." : "value.") + name);
+    return value != null ? value : configs.get(name);
+  }
+}
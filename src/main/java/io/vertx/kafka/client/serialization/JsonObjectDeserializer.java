@@ -16,19 +16,47 @@
 
 package io.vertx.kafka.client.serialization;
 
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Deserializer;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
  * Kafka deserializer for raw bytes in a buffer
+ * <p>
+ * The JSON is parsed straight from the record bytes. In lazy mode the returned object keeps the bytes and parses
+ * them the first time it is accessed, records that are only routed or filtered on their key are never parsed.
+ * The lazy mode is enabled with the {@link #LAZY_CONFIG} property, or {@code key.deserializer.lazy} /
+ * {@code value.deserializer.lazy}.
  */
 public class JsonObjectDeserializer implements Deserializer<JsonObject> {
 
+  /**
+   * Whether the JSON is parsed the first time the object is accessed, {@code false} by default.
+   */
+  public static final String LAZY_CONFIG = "deserializer.lazy";
+
+  private boolean lazy;
+
+  public JsonObjectDeserializer() {
+    this(false);
+  }
+
+  /**
+   * @param lazy whether the JSON is parsed the first time the object is accessed
+   */
+  public JsonObjectDeserializer(boolean lazy) {
+    this.lazy = lazy;
+  }
+
   @Override
   public void configure(Map<String, ?> configs, boolean isKey) {
+    Object value = JsonBytes.config(configs, isKey, LAZY_CONFIG);
+    if (value != null) {
+      lazy = value instanceof Boolean ? (Boolean) value : Boolean.parseBoolean(value.toString());
+    }
   }
 
   @Override
@@ -36,7 +64,27 @@ public class JsonObjectDeserializer implements Deserializer<JsonObject> {
     if (data == null)
       return null;
 
-    return Buffer.buffer(data).toJsonObject();
+    if (lazy) {
+      return new JsonObject(new LazyJsonMap(data, 0, data.length));
+    }
+    return JsonBytes.decode(data, 0, data.length, JsonObject.class);
+  }
+
+  /**
+   * Deserialize from the bytes of the record without copying them to an intermediate array.
+   * <p>
+   * This overrides the {@code ByteBuffer} variant of {@link Deserializer} used by Kafka clients providing it.
+   */
+  public JsonObject deserialize(String topic, Headers headers, ByteBuffer data) {
+    if (data == null)
+      return null;
+
+    if (lazy) {
+      // the bytes are kept beyond this call, they cannot be shared with the consumer
+      byte[] bytes = JsonBytes.bytes(data);
+      return new JsonObject(new LazyJsonMap(bytes, 0, bytes.length));
+    }
+    return JsonBytes.decode(data, JsonObject.class);
   }
 
   @Override
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.serialization;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Kafka deserializer for JSON objects only materializing a subset of their top level fields, the other fields are
+ * skipped by the parser. This suits records routed on a few fields of large documents.
+ * <p>
+ * The fields are configured with the constructor or with the {@link #FIELDS_CONFIG} property, or
+ * {@code key.deserializer.fields} / {@code value.deserializer.fields}, as a comma separated list.
+ */
+public class JsonObjectProjectionDeserializer implements Deserializer<JsonObject> {
+
+  /**
+   * The comma separated list of the top level fields to deserialize.
+   */
+  public static final String FIELDS_CONFIG = "deserializer.fields";
+
+  private Set<String> fields;
+
+  public JsonObjectProjectionDeserializer() {
+    this(Collections.emptySet());
+  }
+
+  /**
+   * @param fields the top level fields to deserialize
+   */
+  public JsonObjectProjectionDeserializer(Collection<String> fields) {
+    this.fields = new HashSet<>(fields);
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    Object value = JsonBytes.config(configs, isKey, FIELDS_CONFIG);
+    if (value instanceof Collection) {
+      fields = new HashSet<>();
+      for (Object field : (Collection<?>) value) {
+        fields.add(field.toString().trim());
+      }
+    } else if (value != null) {
+      fields = new HashSet<>();
+      for (String field : value.toString().split(",")) {
+        fields.add(field.trim());
+      }
+    }
+  }
+
+  @Override
+  public JsonObject deserialize(String topic, byte[] data) {
+    if (data == null)
+      return null;
+
+    try (JsonParser parser = JsonBytes.FACTORY.createParser(data)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new DecodeException("Failed to decode: not a JSON object");
+      }
+      JsonObject json = new JsonObject();
+      int remaining = fields.size();
+      while (remaining > 0 && parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (fields.contains(name)) {
+          json.put(name, parseValue(parser, token));
+          remaining--;
+        } else {
+          parser.skipChildren();
+        }
+      }
+      return json;
+    } catch (IOException e) {
+      throw new DecodeException("Failed to decode:" + e.getMessage(), e);
+    }
+  }
+
+  private static Object parseValue(JsonParser parser, JsonToken token) throws IOException {
+    switch (token) {
+      case START_OBJECT:
+        JsonObject object = new JsonObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String name = parser.getCurrentName();
+          object.put(name, parseValue(parser, parser.nextToken()));
+        }
+        return object;
+      case START_ARRAY:
+        JsonArray array = new JsonArray();
+        JsonToken next;
+        while ((next = parser.nextToken()) != JsonToken.END_ARRAY) {
+          array.add(parseValue(parser, next));
+        }
+        return array;
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return parser.getNumberValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      case VALUE_NULL:
+        return null;
+      default:
+        throw new DecodeException("Unexpected token " + token);
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
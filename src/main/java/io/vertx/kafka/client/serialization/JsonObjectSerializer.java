@@ -23,6 +23,8 @@ import java.util.Map;
 
 /**
  * Kafka serializer for raw bytes in a buffer
+ * <p>
+ * The JSON is encoded straight to UTF-8 bytes, without an intermediate {@code String}.
  */
 public class JsonObjectSerializer implements Serializer<JsonObject> {
 
@@ -35,7 +37,7 @@ public class JsonObjectSerializer implements Serializer<JsonObject> {
     if (data == null)
       return null;
 
-    return data.encode().getBytes();
+    return JsonBytes.encode(data);
   }
 
   @Override
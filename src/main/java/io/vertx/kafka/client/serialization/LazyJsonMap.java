@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.serialization;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The map of a lazily deserialized {@link JsonObject}, the JSON bytes are parsed the first time the map is accessed.
+ */
+class LazyJsonMap extends AbstractMap<String, Object> {
+
+  private byte[] data;
+  private final int offset;
+  private final int length;
+  private Map<String, Object> map;
+
+  LazyJsonMap(byte[] data, int offset, int length) {
+    this.data = data;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  private Map<String, Object> map() {
+    Map<String, Object> m = map;
+    if (m == null) {
+      m = JsonBytes.decode(data, offset, length, JsonObject.class).getMap();
+      map = m;
+      data = null;
+    }
+    return m;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return map().entrySet();
+  }
+
+  @Override
+  public int size() {
+    return map().size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return map().isEmpty();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return map().containsKey(key);
+  }
+
+  @Override
+  public Object get(Object key) {
+    return map().get(key);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    return map().put(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    return map().remove(key);
+  }
+
+  @Override
+  public void clear() {
+    map().clear();
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return map().keySet();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return map().equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    return map().hashCode();
+  }
+}
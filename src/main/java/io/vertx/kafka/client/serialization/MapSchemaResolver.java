@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertx.kafka.client.serialization;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link SchemaResolver} over in-memory maps, filled programmatically or loaded from a JSON file of the form
+ * {@code {"schemas":[...],"topics":{"orders":1}}}, useful for tests and static deployments.
+ */
+public class MapSchemaResolver implements SchemaResolver {
+
+  private final Map<Integer, BinarySchema> schemas = new ConcurrentHashMap<>();
+  private final Map<String, BinarySchema> topics = new ConcurrentHashMap<>();
+
+  /**
+   * Load the schemas of a JSON file.
+   */
+  public static MapSchemaResolver load(Path path) {
+    try {
+      return fromJson(new JsonObject(new String(Files.readAllBytes(path), StandardCharsets.UTF_8)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public static MapSchemaResolver fromJson(JsonObject json) {
+    MapSchemaResolver resolver = new MapSchemaResolver();
+    JsonArray schemas = json.getJsonArray("schemas", new JsonArray());
+    for (int i = 0;i < schemas.size();i++) {
+      resolver.register(BinarySchema.fromJson(schemas.getJsonObject(i)));
+    }
+    for (Map.Entry<String, Object> topic : json.getJsonObject("topics", new JsonObject())) {
+      int id = ((Number) topic.getValue()).intValue();
+      BinarySchema schema = resolver.byId(id);
+      if (schema == null) {
+        throw new IllegalArgumentException("Unknown schema " + id + " for topic " + topic.getKey());
+      }
+      resolver.register(topic.getKey(), schema);
+    }
+    return resolver;
+  }
+
+  /**
+   * Register a schema.
+   *
+   * @return a reference to this, so the API can be used fluently
+   */
+  public MapSchemaResolver register(BinarySchema schema) {
+    schemas.put(schema.id(), schema);
+    return this;
+  }
+
+  /**
+   * Register a schema and use it to write the records of a topic.
+   *
+   * @return a reference to this, so the API can be used fluently
+   */
+  public MapSchemaResolver register(String topic, BinarySchema schema) {
+    register(schema);
+    topics.put(topic, schema);
+    return this;
+  }
+
+  @Override
+  public BinarySchema byId(int id) {
+    return schemas.get(id);
+  }
+
+  @Override
+  public BinarySchema forTopic(String topic) {
+    return topics.get(topic);
+  }
+}
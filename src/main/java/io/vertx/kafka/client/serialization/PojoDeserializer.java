@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.serialization;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.jackson.DatabindCodec;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Kafka deserializer binding JSON straight from the record bytes to objects with Vert.x Jackson databind, the
+ * object reader is created with the deserializer, from the current {@link DatabindCodec#mapper()}, and reused.
+ * Requires {@code jackson-databind}.
+ */
+public class PojoDeserializer<T> implements Deserializer<T> {
+
+  private ObjectReader reader;
+
+  /**
+   * Create a deserializer for the type configured with the {@code key.deserializer.type} or
+   * {@code value.deserializer.type} property.
+   */
+  public PojoDeserializer() {
+  }
+
+  public PojoDeserializer(Class<T> type) {
+    this.reader = DatabindCodec.mapper().readerFor(type);
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    if (reader == null) {
+      reader = DatabindCodec.mapper().readerFor(type(configs, isKey ? "key.deserializer.type" : "value.deserializer.type"));
+    }
+  }
+
+  static Class<?> type(Map<String, ?> configs, String name) {
+    Object value = configs.get(name);
+    if (value instanceof Class) {
+      return (Class<?>) value;
+    } else if (value == null) {
+      throw new IllegalArgumentException("Missing " + name + " property");
+    }
+    try {
+      return Class.forName(value.toString(), true, Thread.currentThread().getContextClassLoader());
+    } catch (ClassNotFoundException e) {
+      throw new IllegalArgumentException("Unknown class " + value + " for " + name, e);
+    }
+  }
+
+  @Override
+  public T deserialize(String topic, byte[] data) {
+    if (data == null)
+      return null;
+
+    try {
+      return reader.readValue(data);
+    } catch (IOException e) {
+      throw new DecodeException("Failed to decode:" + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vertx.kafka.client.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.jackson.DatabindCodec;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * Kafka serializer encoding objects to JSON with Vert.x Jackson databind, the object writer is created with the
+ * serializer, from the current {@link DatabindCodec#mapper()}, and reused. Requires {@code jackson-databind}.
+ */
+public class PojoSerializer<T> implements Serializer<T> {
+
+  private ObjectWriter writer;
+
+  /**
+   * Create a serializer for the type configured with the {@code key.serializer.type} or {@code value.serializer.type}
+   * property.
+   */
+  public PojoSerializer() {
+  }
+
+  public PojoSerializer(Class<T> type) {
+    this.writer = DatabindCodec.mapper().writerFor(type);
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    if (writer == null) {
+      writer = DatabindCodec.mapper().writerFor(PojoDeserializer.type(configs, isKey ? "key.serializer.type" : "value.serializer.type"));
+    }
+  }
+
+  @Override
+  public byte[] serialize(String topic, T data) {
+    if (data == null)
+      return null;
+
+    try {
+      return writer.writeValueAsBytes(data);
+    } catch (JsonProcessingException e) {
+      throw new EncodeException("Failed to encode as JSON: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 Red Hat Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertx.kafka.client.serialization;
+
+/**
+ * Resolves the schemas of the compact binary serde, for instance from a schema registry.
+ * <p>
+ * Resolved schemas are compiled and cached by the serializers and deserializers, a schema id must always resolve
+ * to the same schema.
+ */
+public interface SchemaResolver {
+
+  /**
+   * @return the schema with the given id, or {@code null} when it is unknown
+   */
+  BinarySchema byId(int id);
+
+  /**
+   * @return the schema records of the given topic are written with, or {@code null} when there is none
+   */
+  BinarySchema forTopic(String topic);
+}
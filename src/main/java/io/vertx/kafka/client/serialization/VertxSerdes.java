@@ -39,6 +39,22 @@ public class VertxSerdes extends Serdes {
   }
 
 
+  /**
+   * @return a serde encoding and binding objects of the given type to JSON with Vert.x Jackson databind, requires
+   * {@code jackson-databind}. The serde uses the configuration of {@code DatabindCodec.mapper()} at the time it is
+   * created.
+   */
+  static public <T> Serde<T> pojo(Class<T> type) {
+    return new PojoSerde<>(type);
+  }
+
+  /**
+   * @return a serde of json objects in the compact binary format, with the schemas given by the resolver
+   */
+  static public Serde<JsonObject> binary(SchemaResolver resolver) {
+    return new BinarySerde(resolver);
+  }
+
   static public final class BufferSerde extends WrapperSerde<Buffer> {
     public BufferSerde() {
       super(new BufferSerializer(), new BufferDeserializer());
@@ -57,6 +73,18 @@ public class VertxSerdes extends Serdes {
     }
   }
 
+  static public final class PojoSerde<T> extends WrapperSerde<T> {
+    public PojoSerde(Class<T> type) {
+      super(new PojoSerializer<>(type), new PojoDeserializer<>(type));
+    }
+  }
+
+  static public final class BinarySerde extends WrapperSerde<JsonObject> {
+    public BinarySerde(SchemaResolver resolver) {
+      super(new BinarySerializer(resolver), new BinaryDeserializer(resolver));
+    }
+  }
+
   static public <T> Serde<T> serdeFrom(Class<T> type) {
     if (Buffer.class.isAssignableFrom(type)) {
       return (Serde<T>) Buffer();
@@ -71,7 +99,26 @@ public class VertxSerdes extends Serdes {
     }
 
     // delegate to look up default Kafka SerDes:
-    return Serdes.serdeFrom(type);
+    try {
+      return Serdes.serdeFrom(type);
+    } catch (IllegalArgumentException e) {
+      // other types are bound to JSON when databind is available
+      if (DATABIND_AVAILABLE) {
+        return pojo(type);
+      }
+      throw e;
+    }
+  }
+
+  private static final boolean DATABIND_AVAILABLE = isDatabindAvailable();
+
+  private static boolean isDatabindAvailable() {
+    try {
+      Class.forName("com.fasterxml.jackson.databind.ObjectMapper", false, VertxSerdes.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
   }
 
 }
@@ -18,32 +18,52 @@ package io.vertx.kafka.client.tests;
 
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.EncodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.consumer.KafkaConsumer;
 import io.vertx.kafka.client.serialization.BufferDeserializer;
 import io.vertx.kafka.client.serialization.BufferSerializer;
+import io.vertx.kafka.client.serialization.JsonObjectDeserializer;
+import io.vertx.kafka.client.serialization.MapSchemaResolver;
+import io.vertx.kafka.client.serialization.JsonObjectProjectionDeserializer;
 import io.vertx.kafka.client.consumer.KafkaReadStream;
 import io.vertx.kafka.client.producer.KafkaWriteStream;
 import io.vertx.kafka.client.serialization.VertxSerdes;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.common.serialization.Serializer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Codec tests
@@ -86,6 +106,206 @@ public class CodecsTest extends KafkaClusterTestBase {
     testSerializer(JsonArray.class, new JsonArray().add(3).add("s").add(true));
   }
 
+  @Test
+  public void testBufferDeserializerWrap() {
+    byte[] data = "Hello".getBytes(StandardCharsets.UTF_8);
+    BufferDeserializer deserializer = new BufferDeserializer();
+    deserializer.configure(Collections.singletonMap("value." + BufferDeserializer.WRAP_CONFIG, "true"), false);
+    Buffer buffer = deserializer.deserialize(topic, data);
+    assertEquals(Buffer.buffer("Hello"), buffer);
+    // the buffer is a view over the record bytes
+    data[0] = 'J';
+    assertEquals(Buffer.buffer("Jello"), buffer);
+
+    ByteBuffer byteBuffer = ByteBuffer.wrap("__Hello__".getBytes(StandardCharsets.UTF_8), 2, 5);
+    assertEquals(Buffer.buffer("Hello"), deserializer.deserialize(topic, null, byteBuffer));
+    assertEquals(Buffer.buffer("Hello"), new BufferDeserializer().deserialize(topic, null, byteBuffer));
+    assertEquals(2, byteBuffer.position());
+  }
+
+  @Test
+  public void testJsonSerializerEncodesUtf8() {
+    JsonObject json = new JsonObject().put("s", "h\u00e9llo \u20ac").put("a", new JsonArray().add(1).add("\u00e9"));
+    assertArrayEquals(json.encode().getBytes(StandardCharsets.UTF_8), VertxSerdes.JsonObject().serializer().serialize(topic, json));
+    JsonArray array = json.getJsonArray("a");
+    assertArrayEquals(array.encode().getBytes(StandardCharsets.UTF_8), VertxSerdes.JsonArray().serializer().serialize(topic, array));
+  }
+
+  @Test
+  public void testJsonSerializerMatchesJsonCodec() {
+    Order order = new Order();
+    order.id = "order-1";
+    order.quantity = 3;
+    order.tags = Arrays.asList("a", "b");
+    JsonObject json = new JsonObject()
+      .put("at", Instant.ofEpochSecond(1_700_000_000L, 123_000_000L))
+      .put("order", order)
+      .put("orders", new JsonArray().add(order));
+    assertArrayEquals(json.encode().getBytes(StandardCharsets.UTF_8), VertxSerdes.JsonObject().serializer().serialize(topic, json));
+    JsonArray array = json.getJsonArray("orders");
+    assertArrayEquals(array.encode().getBytes(StandardCharsets.UTF_8), VertxSerdes.JsonArray().serializer().serialize(topic, array));
+  }
+
+  @Test
+  public void testBufferSerializerDoesNotCopyExactlySizedArray() {
+    byte[] data = "Hello".getBytes(StandardCharsets.UTF_8);
+    Buffer wrapped = new BufferDeserializer(true).deserialize(topic, data);
+    assertSame(data, new BufferSerializer().serialize(topic, wrapped));
+    assertArrayEquals(data, new BufferSerializer().serialize(topic, Buffer.buffer("Hello")));
+  }
+
+  @Test
+  public void testLazyJsonObjectDeserializer() {
+    JsonObject json = new JsonObject().put("s", "the-string").put("o", new JsonObject().put("n", 3));
+    byte[] data = json.encode().getBytes(StandardCharsets.UTF_8);
+    JsonObjectDeserializer deserializer = new JsonObjectDeserializer();
+    deserializer.configure(Collections.singletonMap(JsonObjectDeserializer.LAZY_CONFIG, true), false);
+    JsonObject lazy = deserializer.deserialize(topic, data);
+    assertEquals(3, (int) lazy.getJsonObject("o").getInteger("n"));
+    assertEquals(json, lazy);
+    assertEquals(json, deserializer.deserialize(topic, null, ByteBuffer.wrap(data)));
+  }
+
+  @Test
+  public void testJsonObjectProjectionDeserializer() {
+    JsonObject json = new JsonObject()
+      .put("skipped", new JsonObject().put("a", new JsonArray().add(1).add(new JsonObject())))
+      .put("type", "order")
+      .put("other", "x")
+      .put("amount", 12.5)
+      .put("tags", new JsonArray().add("a").add("b"));
+    JsonObjectProjectionDeserializer deserializer = new JsonObjectProjectionDeserializer();
+    deserializer.configure(Collections.singletonMap("value." + JsonObjectProjectionDeserializer.FIELDS_CONFIG, "type, amount,tags"), false);
+    JsonObject projected = deserializer.deserialize(topic, json.encode().getBytes(StandardCharsets.UTF_8));
+    assertEquals(new JsonObject().put("type", "order").put("amount", 12.5).put("tags", new JsonArray().add("a").add("b")), projected);
+  }
+
+  public static class Order {
+    public String id;
+    public int quantity;
+    public List<String> tags;
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Order)) {
+        return false;
+      }
+      Order that = (Order) o;
+      return Objects.equals(id, that.id) && quantity == that.quantity && Objects.equals(tags, that.tags);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, quantity, tags);
+    }
+  }
+
+  @Test
+  public void testPojoSerializer() {
+    Order order = new Order();
+    order.id = "order-1";
+    order.quantity = 3;
+    order.tags = Arrays.asList("a", "b");
+    Serde<Order> serde = VertxSerdes.pojo(Order.class);
+    assertEquals(order, serde.deserializer().deserialize(topic, serde.serializer().serialize(topic, order)));
+    assertNull(serde.deserializer().deserialize(topic, serde.serializer().serialize(topic, null)));
+    assertEquals(new JsonObject().put("id", "order-1").put("quantity", 3).put("tags", new JsonArray().add("a").add("b")),
+      new JsonObject(Buffer.buffer(VertxSerdes.pojo(Order.class).serializer().serialize(topic, order))));
+  }
+
+  @Test
+  public void testBinarySerde() {
+    MapSchemaResolver resolver = MapSchemaResolver.fromJson(new JsonObject()
+      .put("schemas", new JsonArray().add(new JsonObject()
+        .put("id", 7)
+        .put("fields", new JsonArray()
+          .add(new JsonObject().put("name", "id").put("type", "string"))
+          .add(new JsonObject().put("name", "quantity").put("type", "int"))
+          .add(new JsonObject().put("name", "total").put("type", "long"))
+          .add(new JsonObject().put("name", "price").put("type", "double"))
+          .add(new JsonObject().put("name", "paid").put("type", "boolean"))
+          .add(new JsonObject().put("name", "note").put("type", "string")))))
+      .put("topics", new JsonObject().put(topic, 7)));
+    Serde<JsonObject> serde = VertxSerdes.binary(resolver);
+    JsonObject json = new JsonObject()
+      .put("id", "order-\u00e9")
+      .put("quantity", -3)
+      .put("total", 1L << 40)
+      .put("price", 12.5)
+      .put("paid", true)
+      .putNull("note");
+    byte[] data = serde.serializer().serialize(topic, json);
+    assertEquals(json, serde.deserializer().deserialize(topic, data));
+    // no field name in the payload
+    assertTrue(data.length < VertxSerdes.JsonObject().serializer().serialize(topic, json).length / 2);
+    assertEquals(null, serde.deserializer().deserialize(topic, serde.serializer().serialize(topic, null)));
+  }
+
+  @Test
+  public void testBinarySerdeReportsField() {
+    MapSchemaResolver resolver = MapSchemaResolver.fromJson(new JsonObject()
+      .put("schemas", new JsonArray().add(new JsonObject()
+        .put("id", 3)
+        .put("fields", new JsonArray()
+          .add(new JsonObject().put("name", "id").put("type", "string"))
+          .add(new JsonObject().put("name", "payload").put("type", "bytes")))))
+      .put("topics", new JsonObject().put(topic, 3)));
+    Serde<JsonObject> serde = VertxSerdes.binary(resolver);
+    try {
+      serde.serializer().serialize(topic, new JsonObject().put("id", "abc").put("payload", "not base64 !"));
+      fail();
+    } catch (EncodeException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("payload"));
+    }
+    byte[] data = serde.serializer().serialize(topic, new JsonObject().put("id", "abc"));
+    // corrupt the length of the id
+    data[6] = 0x7F;
+    try {
+      serde.deserializer().deserialize(topic, data);
+      fail();
+    } catch (DecodeException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("id"));
+    }
+  }
+
+  @Test
+  public void testBinarySerdeRejectsOutOfRangeInt() {
+    MapSchemaResolver resolver = MapSchemaResolver.fromJson(new JsonObject()
+      .put("schemas", new JsonArray().add(new JsonObject()
+        .put("id", 5)
+        .put("fields", new JsonArray()
+          .add(new JsonObject().put("name", "quantity").put("type", "int")))))
+      .put("topics", new JsonObject().put(topic, 5)));
+    Serde<JsonObject> serde = VertxSerdes.binary(resolver);
+    try {
+      serde.serializer().serialize(topic, new JsonObject().put("quantity", 1L << 40));
+      fail();
+    } catch (EncodeException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("quantity"));
+    }
+    JsonObject json = new JsonObject().put("quantity", Integer.MIN_VALUE);
+    assertEquals(json, serde.deserializer().deserialize(topic, serde.serializer().serialize(topic, json)));
+  }
+
+  @Test
+  public void testImplicitPojoSerde() {
+    Order order = new Order();
+    order.id = "order-1";
+    order.quantity = 3;
+    Serde<Order> serde = VertxSerdes.serdeFrom(Order.class);
+    assertEquals(order, serde.deserializer().deserialize(topic, serde.serializer().serialize(topic, order)));
+    // the Kafka serdes come first
+    assertEquals(Serdes.Long().getClass(), VertxSerdes.serdeFrom(Long.class).getClass());
+  }
+
+  @Test
+  public void testCreateConsumerWithPojoClass() {
+    KafkaClientOptions options = new KafkaClientOptions()
+      .setConfig(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+    KafkaConsumer<String, Order> kafkaConsumer = KafkaConsumer.create(vertx, options, String.class, Order.class);
+    consumer = kafkaConsumer.asStream();
+  }
+
   private <T> void testSerializer(Class<T> type, T val) {
     final Serde<T> serde = VertxSerdes.serdeFrom(type);
     final Deserializer<T> deserializer = serde.deserializer();
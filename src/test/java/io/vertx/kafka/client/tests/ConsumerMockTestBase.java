@@ -21,9 +21,12 @@ import io.vertx.core.Vertx;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecords;
 import io.vertx.kafka.client.consumer.KafkaReadStream;
+import io.vertx.kafka.client.consumer.impl.KafkaConsumerRecordsImpl;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.MockConsumer;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.apache.kafka.common.TopicPartition;
@@ -36,9 +39,15 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -141,6 +150,7 @@ public abstract class ConsumerMockTestBase {
   public void testConsumedMessagesHandledOnUniqueContexts(TestContext ctx) {
     MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
     KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    consumer.localContextPerRecord(true);
     int messageCount = 2;
     Async doneLatch = ctx.async(messageCount);
     List<Context> contexts = new ArrayList<>();
@@ -163,5 +173,274 @@ public abstract class ConsumerMockTestBase {
     }));
   }
 
+  @Test
+  public void testMaxRecordsPerTick(TestContext ctx) {
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    int num = 50;
+    consumer.maxRecordsPerTick(num);
+    Async doneLatch = ctx.async();
+    AtomicInteger count = new AtomicInteger();
+    AtomicBoolean yielded = new AtomicBoolean();
+    consumer.handler(record -> {
+      if (count.getAndIncrement() == 0) {
+        vertx.runOnContext(v -> yielded.set(true));
+      }
+      // the whole poll is delivered before the stream yields to other tasks
+      ctx.assertFalse(yielded.get());
+      if (count.get() == num) {
+        consumer.close().onComplete(v -> doneLatch.complete());
+      }
+    });
+    subscribeAndAddRecords(consumer, mock, num);
+  }
+
+  @Test
+  public void testMaxTimePerTick(TestContext ctx) {
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    int num = 50;
+    consumer.maxRecordsPerTick(num);
+    consumer.maxTimePerTick(Duration.ofNanos(1));
+    Async doneLatch = ctx.async();
+    AtomicInteger count = new AtomicInteger();
+    AtomicBoolean yielded = new AtomicBoolean();
+    consumer.handler(record -> {
+      int val = count.getAndIncrement();
+      if (val == 0) {
+        vertx.runOnContext(v -> yielded.set(true));
+      } else if (val == 1) {
+        // the time budget is exhausted after the first record
+        ctx.assertTrue(yielded.get());
+      }
+      if (val == num - 1) {
+        consumer.close().onComplete(v -> doneLatch.complete());
+      }
+    });
+    subscribeAndAddRecords(consumer, mock, num);
+  }
+
+  @Test
+  public void testPrefetch(TestContext ctx) {
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    consumer.prefetchRecords(100);
+    int num = 50;
+    Async doneLatch = ctx.async();
+    AtomicInteger count = new AtomicInteger();
+    consumer.handler(record -> {
+      int val = count.getAndIncrement();
+      ctx.assertEquals(val, (int) record.offset());
+      if (val == num - 1) {
+        consumer.close().onComplete(v -> doneLatch.complete());
+      }
+    });
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Collections.singletonList(new TopicPartition("the_topic", 0)));
+        mock.seek(new TopicPartition("the_topic", 0), 0);
+      });
+      // one batch of 10 records per poll
+      for (int i = 0; i < num; i += 10) {
+        int from = i;
+        mock.schedulePollTask(() -> {
+          for (int j = from; j < from + 10; j++) {
+            mock.addRecord(new ConsumerRecord<>("the_topic", 0, j, "key-" + j, "value-" + j));
+          }
+        });
+      }
+    });
+  }
+
+  @Test
+  public void testSeekDiscardsPrefetchedRecords(TestContext ctx) {
+    TopicPartition tp = new TopicPartition("the_topic", 0);
+    AtomicInteger polls = new AtomicInteger();
+    MockConsumer<String, String> mock = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+      @Override
+      public synchronized ConsumerRecords<String, String> poll(Duration timeout) {
+        ConsumerRecords<String, String> records = super.poll(timeout);
+        polls.incrementAndGet();
+        return records;
+      }
+    };
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    consumer.prefetchRecords(100);
+    Async doneLatch = ctx.async();
+    List<Long> offsets = new ArrayList<>();
+    consumer.handler(record -> {
+      offsets.add(record.offset());
+      if (offsets.size() == 3) {
+        // the second batch is polled at the end of this turn, before the seek reaches the consumer thread
+        consumer.seek(tp, 2).onComplete(ctx.asyncAssertSuccess(v -> {
+          ctx.assertTrue(polls.get() >= 2);
+          for (int i = 2; i < 20; i++) {
+            mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+          }
+        }));
+      }
+      if (offsets.size() == 28) {
+        List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < 10; i++) {
+          expected.add(i);
+        }
+        for (long i = 2; i < 20; i++) {
+          expected.add(i);
+        }
+        ctx.assertEquals(expected, offsets);
+        consumer.close().onComplete(v -> doneLatch.complete());
+      }
+    });
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Collections.singletonList(tp));
+        mock.seek(tp, 0);
+        for (int i = 0; i < 10; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+      mock.schedulePollTask(() -> {
+        for (int i = 10; i < 20; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+    });
+  }
+
+  @Test
+  public void testConsumedMessagesHandledOnStreamContext(TestContext ctx) {
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    int messageCount = 2;
+    Async doneLatch = ctx.async(messageCount);
+    List<Context> contexts = new ArrayList<>();
+    consumer.handler(record -> {
+      contexts.add(Vertx.currentContext());
+      doneLatch.countDown();
+    });
+    subscribeAndAddRecords(consumer, mock, messageCount);
+    doneLatch.handler(r -> consumer.close().onComplete(v -> {
+      ctx.assertEquals(messageCount, contexts.size());
+      ctx.assertEquals(contexts.get(0), contexts.get(1));
+    }));
+  }
+
+  @Test
+  public void testDispatchAllocation(TestContext ctx) {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)
+      || !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+      return;
+    }
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+    threads.setThreadAllocatedMemoryEnabled(true);
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    int num = 10_000;
+    // deliver the whole poll in a single event loop turn
+    consumer.maxRecordsPerTick(num);
+    Async doneLatch = ctx.async();
+    int[] count = new int[1];
+    long[] allocated = new long[1];
+    consumer.handler(record -> {
+      int val = count[0]++;
+      if (val == 0) {
+        allocated[0] = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+      } else if (val == num - 1) {
+        long bytesPerRecord = (threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocated[0]) / (num - 1);
+        ctx.assertTrue(bytesPerRecord < 64, "Allocated " + bytesPerRecord + " bytes per record");
+        consumer.close().onComplete(v -> doneLatch.complete());
+      }
+    });
+    subscribeAndAddRecords(consumer, mock, num);
+  }
+
+  @Test
+  public void testFetchOne(TestContext ctx) {
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    int num = 50;
+    Async doneLatch = ctx.async();
+    AtomicInteger count = new AtomicInteger();
+    consumer.pause();
+    consumer.fetch(1);
+    consumer.handler(record -> {
+      int val = count.getAndIncrement();
+      ctx.assertEquals(val, (int) record.offset());
+      ctx.assertEquals(0L, consumer.demand());
+      if (val == num - 1) {
+        consumer.close().onComplete(v -> doneLatch.complete());
+      } else {
+        consumer.fetch(1);
+      }
+    });
+    subscribeAndAddRecords(consumer, mock, num);
+  }
+
+  @Test
+  public void testFetchBounded(TestContext ctx) {
+    MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    KafkaReadStream<String, String> consumer = createConsumer(vertx, mock);
+    int num = 50;
+    int fetched = 15;
+    Async doneLatch = ctx.async();
+    AtomicInteger count = new AtomicInteger();
+    consumer.pause();
+    consumer.fetch(fetched);
+    consumer.handler(record -> {
+      ctx.assertTrue(count.incrementAndGet() <= fetched);
+      ctx.assertEquals(fetched - count.get(), (int) consumer.demand());
+      if (count.get() == fetched) {
+        vertx.setTimer(50, id -> {
+          ctx.assertEquals(fetched, count.get());
+          ctx.assertEquals(0L, consumer.demand());
+          consumer.close().onComplete(v -> doneLatch.complete());
+        });
+      }
+    });
+    subscribeAndAddRecords(consumer, mock, num);
+  }
+
+  @Test
+  public void testRecordsView(TestContext ctx) {
+    TopicPartition tp0 = new TopicPartition("the_topic", 0);
+    TopicPartition tp1 = new TopicPartition("the_topic", 1);
+    Map<TopicPartition, List<ConsumerRecord<String, String>>> map = new LinkedHashMap<>();
+    map.put(tp0, new ArrayList<>());
+    map.put(tp1, new ArrayList<>());
+    for (int i = 0;i < 3;i++) {
+      map.get(tp0).add(new ConsumerRecord<>("the_topic", 0, 10 + i, "key-" + i, "value-" + i));
+      map.get(tp1).add(new ConsumerRecord<>("the_topic", 1, 20 + i, "key-" + i, "value-" + i));
+    }
+    KafkaConsumerRecords<String, String> records = new KafkaConsumerRecordsImpl<>(new ConsumerRecords<>(map));
+    ctx.assertEquals(6, records.size());
+    ctx.assertEquals(21L, records.recordAt(4).offset());
+    ctx.assertEquals(10L, records.recordAt(0).offset());
+    ctx.assertTrue(records.recordAt(4) == records.recordAt(4));
+    io.vertx.kafka.client.common.TopicPartition vtp1 = new io.vertx.kafka.client.common.TopicPartition("the_topic", 1);
+    ctx.assertEquals(2, records.partitions().size());
+    ctx.assertEquals(20L, records.firstOffset(vtp1));
+    ctx.assertEquals(22L, records.lastOffset(vtp1));
+    ctx.assertEquals(-1L, records.firstOffset(new io.vertx.kafka.client.common.TopicPartition("the_topic", 2)));
+    ctx.assertEquals("value-1", records.records(vtp1).get(1).value());
+    // the partition view shares the wrappers of the batch
+    ctx.assertTrue(records.records(vtp1).get(1) == records.recordAt(4));
+    List<Long> offsets = new ArrayList<>();
+    records.forEach(record -> offsets.add(record.offset()));
+    ctx.assertEquals(Arrays.asList(10L, 11L, 12L, 20L, 21L, 22L), offsets);
+  }
+
+  private void subscribeAndAddRecords(KafkaReadStream<String, String> consumer, MockConsumer<String, String> mock, int num) {
+    consumer.subscribe(Collections.singleton("the_topic")).onComplete(v -> {
+      mock.schedulePollTask(() -> {
+        mock.rebalance(Collections.singletonList(new TopicPartition("the_topic", 0)));
+        mock.seek(new TopicPartition("the_topic", 0), 0);
+        for (int i = 0; i < num; i++) {
+          mock.addRecord(new ConsumerRecord<>("the_topic", 0, i, "key-" + i, "value-" + i));
+        }
+      });
+    });
+  }
+
   abstract <K, V> KafkaReadStream<K, V> createConsumer(Vertx vertx, Consumer<K, V> consumer);
 }
@@ -1,26 +1,54 @@
 package io.vertx.kafka.client.tests;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.common.TopicPartition;
 import io.vertx.kafka.client.consumer.KafkaConsumer;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
 import io.vertx.kafka.client.consumer.KafkaReadStream;
 import io.vertx.kafka.client.consumer.impl.KafkaConsumerImpl;
+import io.vertx.kafka.client.producer.KafkaTransactionalPipeline;
 
 @RunWith(VertxUnitRunner.class)
 public class KafkaReadStreamMockTest extends KafkaTestBase {
@@ -115,4 +143,1044 @@ public class KafkaReadStreamMockTest extends KafkaTestBase {
 
     }
 
+    @Test
+    public void shouldCoalesceAsyncCommits(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        org.apache.kafka.common.TopicPartition tp1 = new org.apache.kafka.common.TopicPartition(TOPIC, 1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        List<Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata>> commits = Collections.synchronizedList(new ArrayList<>());
+        MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized Set<org.apache.kafka.common.TopicPartition> paused() {
+                try {
+                    // keeps the consumer thread busy while the commits are requested
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.paused();
+            }
+            @Override
+            public synchronized void commitAsync(Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+                commits.add(new HashMap<>(offsets));
+                super.commitAsync(offsets, callback);
+            }
+        };
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+
+        readStream.assign(new HashSet<>(Arrays.asList(tp0, tp1))).onComplete(ctx.asyncAssertSuccess(v -> {
+            readStream.paused();
+            List<io.vertx.core.Future<Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata>>> futures = new ArrayList<>();
+            futures.add(readStream.commitAsync(Collections.singletonMap(tp0, new OffsetAndMetadata(5))));
+            futures.add(readStream.commitAsync(Collections.singletonMap(tp0, new OffsetAndMetadata(3))));
+            futures.add(readStream.commitAsync(Collections.singletonMap(tp1, new OffsetAndMetadata(7))));
+            blocked.countDown();
+            io.vertx.core.Future.all(futures).onComplete(ctx.asyncAssertSuccess(v2 -> {
+                Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata> expected = new HashMap<>();
+                expected.put(tp0, new OffsetAndMetadata(5));
+                expected.put(tp1, new OffsetAndMetadata(7));
+                ctx.assertEquals(Collections.singletonList(expected), commits);
+                futures.forEach(f -> ctx.assertEquals(expected, f.result()));
+                readStream.close().onComplete(v3 -> vertx.close().onComplete(v4 -> done.complete()));
+            }));
+        }));
+    }
+
+    @Test
+    public void shouldCommitAcknowledgedOffsets(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        List<Long> commits = Collections.synchronizedList(new ArrayList<>());
+        MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void commitAsync(Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+                commits.add(offsets.get(tp0).offset());
+                super.commitAsync(offsets, callback);
+            }
+        };
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        readStream.offsetCommitter(Duration.ZERO, 5);
+
+        readStream.handler(record -> {
+            readStream.ack(record);
+            if (record.offset() == 9) {
+                vertx.setPeriodic(10, id -> {
+                    if (readStream.commitLag() == 0) {
+                        vertx.cancelTimer(id);
+                        ctx.assertEquals(10L, commits.get(commits.size() - 1));
+                        ctx.assertEquals(10L, consumer.committed(Collections.singleton(tp0)).get(tp0).offset());
+                        readStream.close().onComplete(v -> vertx.close().onComplete(v2 -> done.complete()));
+                    }
+                });
+            }
+        });
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            consumer.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+            for (int i = 0;i < 10;i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+            }
+        }));
+    }
+
+    @Test
+    public void shouldCommitAcknowledgedOffsetsPeriodically(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        MockConsumer<String, String> consumer = createMockConsumer();
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        // configured before the stream consumes, the timer is armed by assign
+        readStream.offsetCommitter(Duration.ofMillis(50), 0);
+
+        readStream.handler(record -> {
+            readStream.ack(record);
+            if (record.offset() == 9) {
+                vertx.setPeriodic(10, id -> {
+                    OffsetAndMetadata committed = consumer.committed(Collections.singleton(tp0)).get(tp0);
+                    if (committed != null && committed.offset() == 10L) {
+                        vertx.cancelTimer(id);
+                        ctx.assertEquals(0L, readStream.commitLag());
+                        readStream.close().onComplete(v -> vertx.close().onComplete(v2 -> done.complete()));
+                    }
+                });
+            }
+        });
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            for (int i = 0;i < 10;i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+            }
+        }));
+    }
+
+    @Test
+    public void shouldNotCommitPastUnacknowledgedRecordAfterOffsetGap(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        List<Long> commits = Collections.synchronizedList(new ArrayList<>());
+        MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void commitAsync(Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+                commits.add(offsets.get(tp0).offset());
+                super.commitAsync(offsets, callback);
+            }
+        };
+        consumer.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        readStream.offsetCommitter(Duration.ZERO, 0).ackWindow(16);
+
+        List<ConsumerRecord<String, String>> delivered = new ArrayList<>();
+        readStream.handler(record -> {
+            delivered.add(record);
+            if (delivered.size() == 4) {
+                // offset 2 is a compacted record or a transaction marker
+                readStream.ack(delivered.get(2));
+                readStream.ack(delivered.get(3));
+                ctx.assertEquals(0L, readStream.commitLag());
+                readStream.ack(delivered.get(0));
+                ctx.assertEquals(1L, readStream.commitLag());
+                readStream.close().onComplete(ctx.asyncAssertSuccess(v -> {
+                    // the consumer cannot be queried once closed
+                    ctx.assertEquals(Collections.singletonList(1L), commits);
+                    vertx.close().onComplete(v2 -> done.complete());
+                }));
+            }
+        });
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            for (long offset : new long[] { 0, 1, 3, 4 }) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, offset, "key-" + offset, "value-" + offset));
+            }
+        }));
+    }
+
+    @Test
+    public void shouldCommitOutOfOrderAcknowledgements(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Promise<Void> paused = Promise.promise();
+        Promise<Void> resumed = Promise.promise();
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        List<Long> commits = Collections.synchronizedList(new ArrayList<>());
+        MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void commitAsync(Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+                commits.add(offsets.get(tp0).offset());
+                super.commitAsync(offsets, callback);
+            }
+            @Override
+            public synchronized void pause(Collection<org.apache.kafka.common.TopicPartition> partitions) {
+                super.pause(partitions);
+                paused.tryComplete();
+            }
+            @Override
+            public synchronized void resume(Collection<org.apache.kafka.common.TopicPartition> partitions) {
+                super.resume(partitions);
+                resumed.tryComplete();
+            }
+        };
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        readStream.offsetCommitter(Duration.ZERO, 0).ackWindow(4);
+
+        List<ConsumerRecord<String, String>> inFlight = new ArrayList<>();
+        readStream.handler(record -> {
+            inFlight.add(record);
+            if (inFlight.size() == 10) {
+                paused.future().onComplete(v -> {
+                    // everything but the first record is processed
+                    for (int i = 9;i > 0;i--) {
+                        readStream.ack(inFlight.get(i));
+                    }
+                    ctx.assertEquals(0L, readStream.commitLag());
+                    readStream.ack(inFlight.get(0));
+                    ctx.assertEquals(10L, readStream.commitLag());
+                    resumed.future().onComplete(v2 -> readStream.close().onComplete(ctx.asyncAssertSuccess(v3 -> {
+                        ctx.assertEquals(Collections.singletonList(10L), commits);
+                        vertx.close().onComplete(v4 -> done.complete());
+                    })));
+                });
+            }
+        });
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            consumer.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+            for (int i = 0;i < 10;i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+            }
+        }));
+    }
+
+    @Test
+    public void shouldProcessInParallelPreservingKeyOrder(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        int numRecords = 100;
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        readStream.offsetCommitter(Duration.ZERO, 0);
+
+        Map<String, List<Long>> processed = new ConcurrentHashMap<>();
+        readStream.parallelHandler(4, 8, record -> {
+            processed.computeIfAbsent(record.key(), k -> Collections.synchronizedList(new ArrayList<>())).add(record.offset());
+            Promise<Void> promise = Promise.promise();
+            vertx.setTimer(1 + record.offset() % 3, id -> promise.complete());
+            return promise.future();
+        });
+        vertx.setPeriodic(10, id -> {
+            if (readStream.commitLag() == numRecords) {
+                vertx.cancelTimer(id);
+                processed.forEach((key, offsets) -> {
+                    List<Long> sorted = new ArrayList<>(offsets);
+                    Collections.sort(sorted);
+                    ctx.assertEquals(sorted, offsets);
+                });
+                readStream.close().onComplete(ctx.asyncAssertSuccess(v -> vertx.close().onComplete(v2 -> done.complete())));
+            }
+        });
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            consumer.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+            for (int i = 0;i < numRecords;i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + (i % 10), "value-" + i));
+            }
+        }));
+    }
+
+    @Test
+    public void shouldCloseStreamOnFailedRecord(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        List<Long> commits = Collections.synchronizedList(new ArrayList<>());
+        MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void commitAsync(Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+                commits.add(offsets.get(tp0).offset());
+                super.commitAsync(offsets, callback);
+            }
+        };
+        consumer.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        readStream.offsetCommitter(Duration.ZERO, 0);
+
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong failures = new AtomicLong();
+        readStream.exceptionHandler(err -> {
+            ctx.assertEquals("offset-3", err.getMessage());
+            failures.incrementAndGet();
+        });
+        readStream.parallelHandler(2, 4, record -> {
+            processed.add(record.offset());
+            return record.offset() == 3 ? Future.failedFuture("offset-3") : Future.succeededFuture();
+        });
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            for (int i = 0;i < 10;i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key", "value-" + i));
+            }
+        }));
+
+        vertx.setPeriodic(10, id -> {
+            if (consumer.closed()) {
+                vertx.cancelTimer(id);
+                // the failed record ends the stream, the records processed before it are committed on close
+                ctx.assertEquals(1L, failures.get());
+                ctx.assertEquals(Arrays.asList(0L, 1L, 2L, 3L), new ArrayList<>(processed));
+                ctx.assertEquals(Collections.singletonList(3L), commits);
+                vertx.close().onComplete(v -> done.complete());
+            }
+        });
+    }
+
+    @Test
+    public void shouldPausePartitionStreamsIndependently(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        org.apache.kafka.common.TopicPartition tp1 = new org.apache.kafka.common.TopicPartition(TOPIC, 1);
+        Promise<Void> tp0Paused = Promise.promise();
+        MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void pause(Collection<org.apache.kafka.common.TopicPartition> partitions) {
+                super.pause(partitions);
+                if (partitions.contains(tp0)) {
+                    tp0Paused.tryComplete();
+                }
+            }
+        };
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+
+        List<Long> received0 = new ArrayList<>();
+        List<Long> received1 = new ArrayList<>();
+        io.vertx.core.streams.ReadStream<ConsumerRecord<String, String>> stream0 = readStream.partitionStream(tp0);
+        io.vertx.core.streams.ReadStream<ConsumerRecord<String, String>> stream1 = readStream.partitionStream(tp1);
+        stream0.pause();
+        stream0.handler(record -> {
+            received0.add(record.offset());
+            if (received0.size() == 5) {
+                ctx.assertFalse(consumer.paused().contains(tp1));
+                readStream.close().onComplete(v -> vertx.close().onComplete(v2 -> done.complete()));
+            }
+        });
+        stream1.handler(record -> {
+            received1.add(record.offset());
+            if (received1.size() == 5) {
+                // the paused partition does not hold the other one back
+                ctx.assertTrue(received0.isEmpty());
+                tp0Paused.future().onComplete(ctx.asyncAssertSuccess(v -> {
+                    ctx.assertTrue(consumer.paused().contains(tp0));
+                    stream0.resume();
+                }));
+            }
+        });
+        readStream.assign(new HashSet<>(Arrays.asList(tp0, tp1))).onComplete(ctx.asyncAssertSuccess(v -> {
+            Map<org.apache.kafka.common.TopicPartition, Long> beginningOffsets = new HashMap<>();
+            beginningOffsets.put(tp0, 0L);
+            beginningOffsets.put(tp1, 0L);
+            consumer.updateBeginningOffsets(beginningOffsets);
+            for (int i = 0;i < 5;i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 1, i, "key-" + i, "value-" + i));
+            }
+        }));
+    }
+
+    @Test
+    public void shouldEndPartitionStreamsOnClose(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async ended = ctx.async(2);
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        org.apache.kafka.common.TopicPartition tp1 = new org.apache.kafka.common.TopicPartition(TOPIC, 1);
+        MockConsumer<String, String> consumer = createMockConsumer();
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+
+        readStream.partitionStream(tp0).endHandler(v -> ended.countDown());
+        readStream.partitionStream(tp1).endHandler(v -> ended.countDown());
+        readStream.assign(new HashSet<>(Arrays.asList(tp0, tp1))).onComplete(ctx.asyncAssertSuccess(v -> {
+            // the streams end before the close completes
+            readStream.close().onComplete(v2 -> vertx.close());
+        }));
+    }
+
+    @Test
+    public void shouldNotReplaceRecordHandlerWithPartitionStreams(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, createMockConsumer());
+        readStream.handler(record -> {});
+        try {
+            readStream.partitionStream(new org.apache.kafka.common.TopicPartition(TOPIC, 0));
+            ctx.fail();
+        } catch (IllegalStateException expected) {
+        }
+        vertx.close().onComplete(ctx.asyncAssertSuccess());
+    }
+
+    @Test
+    public void shouldReuseFlyweightRecords(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        MockConsumer<String, String> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        KafkaConsumer<String, String> consumer = new KafkaConsumerImpl<>(KafkaReadStream.create(vertx, mock));
+
+        List<KafkaConsumerRecord<String, String>> instances = new ArrayList<>();
+        consumer.flyweightRecords(true).handler(record -> {
+            instances.add(record);
+            ctx.assertEquals("value-" + record.offset(), record.value());
+            ctx.assertEquals("h-" + record.offset(), record.lastHeader("h").value().toString());
+            ctx.assertNull(record.lastHeader("missing"));
+            ctx.assertEquals(2, record.headers().size());
+            ctx.assertEquals("first", record.headers().get(0).value().toString());
+            if (instances.size() == 3) {
+                ctx.assertTrue(instances.get(0) == instances.get(2));
+                consumer.close().onComplete(v -> vertx.close().onComplete(v2 -> done.complete()));
+            }
+        });
+        consumer.assign(new io.vertx.kafka.client.common.TopicPartition(TOPIC, 0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            mock.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+            for (int i = 0;i < 3;i++) {
+                RecordHeaders headers = new RecordHeaders();
+                headers.add("h", "first".getBytes());
+                headers.add("h", ("h-" + i).getBytes());
+                mock.addRecord(new ConsumerRecord<>(TOPIC, 0, i, ConsumerRecord.NO_TIMESTAMP, TimestampType.NO_TIMESTAMP_TYPE,
+                    ConsumerRecord.NULL_SIZE, ConsumerRecord.NULL_SIZE, "key-" + i, "value-" + i, headers, Optional.empty()));
+            }
+        }));
+    }
+
+    @Test
+    public void shouldPublishRequestedRecords(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        Flow.Publisher<ConsumerRecord<String, String>> publisher = readStream.toPublisher();
+
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        Promise<Flow.Subscription> subscribed = Promise.promise();
+        publisher.subscribe(new Flow.Subscriber<ConsumerRecord<String, String>>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscribed.complete(subscription);
+            }
+            @Override
+            public void onNext(ConsumerRecord<String, String> record) {
+                received.add(record.offset());
+            }
+            @Override
+            public void onError(Throwable throwable) {
+                ctx.fail(throwable);
+            }
+            @Override
+            public void onComplete() {
+                ctx.fail("Unexpected completion");
+            }
+        });
+
+        // a publisher has a single subscriber
+        Promise<Throwable> rejected = Promise.promise();
+        publisher.subscribe(new Flow.Subscriber<ConsumerRecord<String, String>>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+            }
+            @Override
+            public void onNext(ConsumerRecord<String, String> record) {
+                ctx.fail("Unexpected record");
+            }
+            @Override
+            public void onError(Throwable throwable) {
+                rejected.complete(throwable);
+            }
+            @Override
+            public void onComplete() {
+                ctx.fail("Unexpected completion");
+            }
+        });
+        ctx.assertTrue(rejected.future().result() instanceof IllegalStateException);
+
+        Flow.Subscription subscription = subscribed.future().result();
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            consumer.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+            for (int i = 0;i < 10;i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+            }
+            subscription.request(3);
+            vertx.setTimer(100, t1 -> {
+                ctx.assertEquals(Arrays.asList(0L, 1L, 2L), received);
+                subscription.request(2);
+                vertx.setTimer(100, t2 -> {
+                    ctx.assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), received);
+                    subscription.cancel();
+                    subscription.request(5);
+                    vertx.setTimer(100, t3 -> {
+                        ctx.assertEquals(5, received.size());
+                        readStream.close().onComplete(v2 -> vertx.close().onComplete(v3 -> done.complete()));
+                    });
+                });
+            });
+        }));
+    }
+
+    @Test
+    public void shouldPublishRequestedBatches(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        MockConsumer<String, String> consumer = createMockConsumer();
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        Promise<Flow.Subscription> subscribed = Promise.promise();
+        readStream.toBatchPublisher(Duration.ofMillis(10)).subscribe(new Flow.Subscriber<ConsumerRecords<String, String>>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscribed.complete(subscription);
+            }
+            @Override
+            public void onNext(ConsumerRecords<String, String> records) {
+                received.add(records.count());
+            }
+            @Override
+            public void onError(Throwable throwable) {
+                ctx.fail(throwable);
+            }
+            @Override
+            public void onComplete() {
+                ctx.fail("Unexpected completion");
+            }
+        });
+
+        Flow.Subscription subscription = subscribed.future().result();
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            for (int i = 0;i < 5;i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+            }
+            subscription.request(1);
+            vertx.setTimer(100, t1 -> {
+                ctx.assertEquals(Collections.singletonList(5), received);
+                for (int i = 5;i < 8;i++) {
+                    consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+                }
+                vertx.setTimer(100, t2 -> {
+                    // no demand, no batch
+                    ctx.assertEquals(1, received.size());
+                    subscription.request(1);
+                    vertx.setTimer(100, t3 -> {
+                        ctx.assertEquals(Arrays.asList(5, 3), received);
+                        readStream.close().onComplete(v2 -> vertx.close().onComplete(v3 -> done.complete()));
+                    });
+                });
+            });
+        }));
+    }
+
+    @Test
+    public void shouldSignalNonPositivePublisherRequest(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        MockConsumer<String, String> consumer = createMockConsumer();
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        readStream.toPublisher().subscribe(new Flow.Subscriber<ConsumerRecord<String, String>>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(0);
+            }
+            @Override
+            public void onNext(ConsumerRecord<String, String> record) {
+                ctx.fail("Unexpected record");
+            }
+            @Override
+            public void onError(Throwable throwable) {
+                ctx.assertTrue(throwable instanceof IllegalArgumentException);
+                readStream.close().onComplete(v -> vertx.close().onComplete(v2 -> done.complete()));
+            }
+            @Override
+            public void onComplete() {
+                ctx.fail("Unexpected completion");
+            }
+        });
+    }
+
+    @Test
+    public void shouldEndSubscriptionOnTerminalFailureOnly(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        MockConsumer<String, String> consumer = createMockConsumer();
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        readStream.toPublisher().subscribe(new Flow.Subscriber<ConsumerRecord<String, String>>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(10);
+            }
+            @Override
+            public void onNext(ConsumerRecord<String, String> record) {
+                received.add(record.offset());
+                if (received.size() == 3) {
+                    consumer.setPollException(new KafkaException("fatal"));
+                }
+            }
+            @Override
+            public void onError(Throwable throwable) {
+                // signalled on the stream context, not on the consumer thread
+                ctx.assertTrue(io.vertx.core.Context.isOnEventLoopThread());
+                ctx.assertEquals("fatal", throwable.getMessage());
+                ctx.assertEquals(Arrays.asList(0L, 1L, 2L), new ArrayList<>(received));
+                readStream.close().onComplete(v -> vertx.close().onComplete(v2 -> done.complete()));
+            }
+            @Override
+            public void onComplete() {
+                ctx.fail("Unexpected completion");
+            }
+        });
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            // the stream polls again after a transient failure
+            consumer.setPollException(new org.apache.kafka.common.errors.TimeoutException("transient"));
+            consumer.schedulePollTask(() -> {
+                for (int i = 0;i < 3;i++) {
+                    consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+                }
+            });
+        }));
+    }
+
+    @Test
+    public void shouldCommitManyBatchesPerTransaction(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        MockProducer<String, String> producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        KafkaTransactionalPipeline<String, String, String, String> pipeline = KafkaTransactionalPipeline.create(readStream, producer(vertx, producer), records -> {
+            List<ProducerRecord<String, String>> output = new ArrayList<>();
+            records.forEach(record -> output.add(new ProducerRecord<>("output", record.key(), record.value().toUpperCase())));
+            return Future.succeededFuture(output);
+        });
+        pipeline.maxRecords(4).maxInterval(Duration.ofSeconds(30)).pollTimeout(Duration.ofMillis(1)).exceptionHandler(ctx::fail);
+
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            consumer.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+            pipeline.start().onComplete(ctx.asyncAssertSuccess(v2 -> {
+                AtomicLong next = new AtomicLong();
+                vertx.setPeriodic(2, id -> {
+                    long offset = next.getAndIncrement();
+                    consumer.schedulePollTask(() -> consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, offset, "key-" + offset, "value-" + offset)));
+                    if (offset == 9) {
+                        vertx.cancelTimer(id);
+                    }
+                });
+            }));
+        }));
+
+        vertx.setPeriodic(10, id -> {
+            if (producer.history().size() == 8) {
+                vertx.cancelTimer(id);
+                vertx.setTimer(50, t -> {
+                    // each transaction spans several polls
+                    ctx.assertEquals(2L, pipeline.transactions());
+                    ctx.assertEquals(4L, producer.consumerGroupOffsetsHistory().get(0).values().iterator().next().get(tp0).offset());
+                    ctx.assertEquals(8L, producer.consumerGroupOffsetsHistory().get(1).values().iterator().next().get(tp0).offset());
+                    pipeline.stop().onComplete(ctx.asyncAssertSuccess(v -> {
+                        ctx.assertEquals(3L, pipeline.transactions());
+                        ctx.assertEquals(10, producer.history().size());
+                        ctx.assertEquals("VALUE-9", producer.history().get(9).value());
+                        ctx.assertEquals(10L, producer.consumerGroupOffsetsHistory().get(2).values().iterator().next().get(tp0).offset());
+                        readStream.close().onComplete(v2 -> vertx.close().onComplete(v3 -> done.complete()));
+                    }));
+                });
+            }
+        });
+    }
+
+    @Test
+    public void shouldRewindAbortedTransaction(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        List<ConsumerRecord<String, String>> log = Collections.synchronizedList(new ArrayList<>());
+        MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void seek(org.apache.kafka.common.TopicPartition partition, long offset) {
+                super.seek(partition, offset);
+                // the mock consumer forgets polled records, they are added again
+                new ArrayList<>(log).stream().filter(record -> record.offset() >= offset).forEach(this::addRecord);
+            }
+        };
+        MockProducer<String, String> producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        AtomicLong failures = new AtomicLong();
+        KafkaTransactionalPipeline<String, String, String, String> pipeline = KafkaTransactionalPipeline.create(readStream, producer(vertx, producer), records -> {
+            List<ProducerRecord<String, String>> output = new ArrayList<>();
+            for (ConsumerRecord<String, String> record : records) {
+                if (record.offset() == 6 && failures.get() == 0) {
+                    return Future.failedFuture(new Exception("transform failure"));
+                }
+                output.add(new ProducerRecord<>("output", record.key(), record.value()));
+            }
+            return Future.succeededFuture(output);
+        });
+        pipeline.maxRecords(4).maxInterval(Duration.ofSeconds(30)).pollTimeout(Duration.ofMillis(1)).exceptionHandler(err -> {
+            ctx.assertEquals("transform failure", err.getMessage());
+            failures.incrementAndGet();
+        });
+
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            consumer.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+            pipeline.start().onComplete(ctx.asyncAssertSuccess(v2 -> {
+                AtomicLong next = new AtomicLong();
+                vertx.setPeriodic(2, id -> {
+                    long offset = next.getAndIncrement();
+                    ConsumerRecord<String, String> record = new ConsumerRecord<>(TOPIC, 0, offset, "key-" + offset, "value-" + offset);
+                    log.add(record);
+                    consumer.schedulePollTask(() -> consumer.addRecord(record));
+                    if (offset == 9) {
+                        vertx.cancelTimer(id);
+                    }
+                });
+            }));
+        }));
+
+        vertx.setPeriodic(10, id -> {
+            if (producer.history().size() == 8) {
+                vertx.cancelTimer(id);
+                vertx.setTimer(50, t -> pipeline.stop().onComplete(ctx.asyncAssertSuccess(v -> {
+                    ctx.assertEquals(1L, failures.get());
+                    List<String> values = new ArrayList<>();
+                    producer.history().forEach(record -> values.add(record.value()));
+                    // the records of the aborted transaction are written once
+                    List<String> expected = new ArrayList<>();
+                    for (int i = 0;i < 10;i++) {
+                        expected.add("value-" + i);
+                    }
+                    ctx.assertEquals(expected, values);
+                    ctx.assertEquals(10L, producer.consumerGroupOffsetsHistory().get(producer.consumerGroupOffsetsHistory().size() - 1).values().iterator().next().get(tp0).offset());
+                    readStream.close().onComplete(v2 -> vertx.close().onComplete(v3 -> done.complete()));
+                })));
+            }
+        });
+    }
+
+    @Test
+    public void shouldStopPipelineAfterMaxRetries(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        List<ConsumerRecord<String, String>> log = Collections.synchronizedList(new ArrayList<>());
+        MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void seek(org.apache.kafka.common.TopicPartition partition, long offset) {
+                super.seek(partition, offset);
+                new ArrayList<>(log).stream().filter(record -> record.offset() >= offset).forEach(this::addRecord);
+            }
+        };
+        MockProducer<String, String> producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        AtomicLong failures = new AtomicLong();
+        KafkaTransactionalPipeline<String, String, String, String> pipeline = KafkaTransactionalPipeline.create(readStream, producer(vertx, producer),
+          records -> Future.failedFuture(new Exception("transform failure")));
+        pipeline.maxRetries(2).pollTimeout(Duration.ofMillis(1)).exceptionHandler(err -> {
+            ctx.assertEquals("transform failure", err.getMessage());
+            failures.incrementAndGet();
+        });
+
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            consumer.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+            ConsumerRecord<String, String> record = new ConsumerRecord<>(TOPIC, 0, 0L, "key-0", "value-0");
+            log.add(record);
+            consumer.schedulePollTask(() -> consumer.addRecord(record));
+            pipeline.start().onComplete(ctx.asyncAssertSuccess());
+        }));
+
+        vertx.setPeriodic(10, id -> {
+            if (failures.get() == 3) {
+                vertx.cancelTimer(id);
+                pipeline.stop().onComplete(ctx.asyncAssertFailure(err -> {
+                    // the first transaction and its two retries are aborted, the last failure stops the pipeline
+                    ctx.assertEquals("transform failure", err.getMessage());
+                    ctx.assertEquals(3L, failures.get());
+                    ctx.assertEquals(0L, pipeline.transactions());
+                    ctx.assertTrue(producer.history().isEmpty());
+                    readStream.close().onComplete(v -> vertx.close().onComplete(v2 -> done.complete()));
+                }));
+            }
+        });
+    }
+
+    @Test
+    public void shouldDiscardPrefetchedRecordsOnRevocation(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        org.apache.kafka.common.TopicPartition tp1 = new org.apache.kafka.common.TopicPartition(TOPIC, 1);
+        AtomicReference<ConsumerRebalanceListener> listener = new AtomicReference<>();
+        MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void subscribe(Collection<String> topics, ConsumerRebalanceListener rebalanceListener) {
+                listener.set(rebalanceListener);
+                super.subscribe(topics, rebalanceListener);
+            }
+        };
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        // one record per turn, so that the next batches are buffered while the first one is delivered
+        readStream.prefetchRecords(100).maxRecordsPerTick(1);
+
+        List<ConsumerRecord<String, String>> received = new ArrayList<>();
+        readStream.handler(record -> {
+            received.add(record);
+            if (record.partition() == 0 && record.offset() == 19) {
+                // the records of tp1 were buffered when tp1 was revoked
+                received.forEach(r -> ctx.assertEquals(0, r.partition()));
+                ctx.assertEquals(20, received.size());
+                readStream.close().onComplete(v -> vertx.close().onComplete(v2 -> done.complete()));
+            }
+        });
+        readStream.subscribe(Collections.singleton(TOPIC)).onComplete(ctx.asyncAssertSuccess(v -> {
+            consumer.schedulePollTask(() -> {
+                consumer.rebalance(Arrays.asList(tp0, tp1));
+                consumer.updateBeginningOffsets(Map.of(tp0, 0L, tp1, 0L));
+                consumer.seek(tp0, 0);
+                consumer.seek(tp1, 0);
+                for (int i = 0;i < 10;i++) {
+                    consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+                }
+            });
+            consumer.schedulePollTask(() -> {
+                for (int i = 0;i < 10;i++) {
+                    consumer.addRecord(new ConsumerRecord<>(TOPIC, 1, i, "key-" + i, "value-" + i));
+                }
+            });
+            consumer.schedulePollTask(() -> {
+                listener.get().onPartitionsRevoked(Collections.singleton(tp1));
+                consumer.rebalance(Collections.singleton(tp0));
+            });
+            consumer.schedulePollTask(() -> {
+                for (int i = 10;i < 20;i++) {
+                    consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+                }
+            });
+        }));
+    }
+
+    @Test
+    public void shouldCommitDeliveredOffsetsWhenPrefetching(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        org.apache.kafka.common.TopicPartition tp0 = new org.apache.kafka.common.TopicPartition(TOPIC, 0);
+        List<Long> commits = Collections.synchronizedList(new ArrayList<>());
+        MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void commitAsync(Map<org.apache.kafka.common.TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+                commits.add(offsets.get(tp0).offset());
+                super.commitAsync(offsets, callback);
+            }
+        };
+        consumer.updateBeginningOffsets(Collections.singletonMap(tp0, 0L));
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        readStream.prefetchRecords(100).maxRecordsPerTick(1);
+
+        readStream.handler(record -> {
+            if (record.offset() == 5) {
+                // the consumer position is past the buffered records
+                readStream.commit().onComplete(ctx.asyncAssertSuccess(v -> {
+                    ctx.assertEquals(Collections.singletonList(6L), commits);
+                    readStream.close().onComplete(v2 -> vertx.close().onComplete(v3 -> done.complete()));
+                }));
+            }
+        });
+        readStream.assign(Collections.singleton(tp0)).onComplete(ctx.asyncAssertSuccess(v -> {
+            consumer.schedulePollTask(() -> {
+                for (int i = 0;i < 10;i++) {
+                    consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+                }
+            });
+            consumer.schedulePollTask(() -> {
+                for (int i = 10;i < 20;i++) {
+                    consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "key-" + i, "value-" + i));
+                }
+            });
+        }));
+    }
+
+    @Test
+    public void shouldRejectPrefetchingWithAutoCommit(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+        Map<String, Object> config = new HashMap<>();
+        config.put("group.id", "the_group");
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, new MockConsumer<>(OffsetResetStrategy.EARLIEST), new KafkaClientOptions().setConfig(config));
+        try {
+            readStream.prefetchRecords(100);
+            ctx.fail();
+        } catch (IllegalStateException expected) {
+        }
+        config.put("enable.auto.commit", "false");
+        KafkaReadStream<String, String> manualCommits = KafkaReadStream.create(vertx, new MockConsumer<>(OffsetResetStrategy.EARLIEST), new KafkaClientOptions().setConfig(config));
+        manualCommits.prefetchRecords(100);
+        vertx.close().onComplete(ctx.asyncAssertSuccess());
+    }
+
+    @Test
+    public void shouldConsumeOnSharedPool(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        int numConsumers = 20;
+        int numRecords = 10;
+        Async done = ctx.async(numConsumers);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        KafkaClientOptions options = new KafkaClientOptions().setConsumerPoolSize(2).setConsumerPoolName("test-pool");
+
+        for (int i = 0;i < numConsumers;i++) {
+            MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+                @Override
+                public synchronized ConsumerRecords<String, String> poll(Duration timeout) {
+                    threads.add(Thread.currentThread().getName());
+                    return super.poll(timeout);
+                }
+            };
+            Map<org.apache.kafka.common.TopicPartition, Long> beginningOffsets = new HashMap<>();
+            beginningOffsets.put(new org.apache.kafka.common.TopicPartition(TOPIC, 0), 0L);
+            consumer.updateBeginningOffsets(beginningOffsets);
+
+            KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer, options);
+            readStream.pollTimeout(Duration.ofMillis(10));
+            readStream.exceptionHandler(ctx::fail);
+            AtomicLong expected = new AtomicLong();
+            readStream.handler(r -> {
+                ctx.assertEquals(expected.getAndIncrement(), r.offset());
+                if (r.offset() == numRecords - 1) {
+                    readStream.close().onComplete(ctx.asyncAssertSuccess(v -> done.countDown()));
+                }
+            });
+            readStream.assign(Collections.singleton(new org.apache.kafka.common.TopicPartition(TOPIC, 0))).onComplete(ctx.asyncAssertSuccess(v -> {
+                for (int j = 0;j < numRecords;j++) {
+                    consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, j, "key-" + j, "value-" + j));
+                }
+            }));
+        }
+
+        done.handler(ar -> {
+            // all the consumers ran on the two threads of the shared pool
+            ctx.assertTrue(new HashSet<>(Arrays.asList("test-pool-0", "test-pool-1")).containsAll(threads), "Threads " + threads);
+            vertx.close();
+        });
+    }
+
+    @Test
+    public void shouldNotHoldSharedPoolThreadsWhileIdle(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        int numConsumers = 20;
+        Async done = ctx.async(numConsumers);
+        KafkaClientOptions options = new KafkaClientOptions().setConsumerPoolSize(2).setConsumerPoolName("idle-pool");
+
+        List<KafkaReadStream<String, String>> streams = new ArrayList<>();
+        for (int i = 0;i < numConsumers;i++) {
+            MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+                @Override
+                public ConsumerRecords<String, String> poll(Duration timeout) {
+                    ConsumerRecords<String, String> records = super.poll(timeout);
+                    if (records.isEmpty()) {
+                        // blocks like a real consumer waiting for records
+                        try {
+                            Thread.sleep(timeout.toMillis());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return records;
+                }
+            };
+            Map<org.apache.kafka.common.TopicPartition, Long> beginningOffsets = new HashMap<>();
+            beginningOffsets.put(new org.apache.kafka.common.TopicPartition(TOPIC, 0), 0L);
+            consumer.updateBeginningOffsets(beginningOffsets);
+            KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer, options);
+            readStream.handler(r -> ctx.fail("Unexpected record"));
+            streams.add(readStream);
+        }
+
+        List<Future<Void>> assigned = new ArrayList<>();
+        streams.forEach(readStream -> assigned.add(readStream.assign(Collections.singleton(new org.apache.kafka.common.TopicPartition(TOPIC, 0)))));
+        Future.all(assigned).onComplete(ctx.asyncAssertSuccess(v -> vertx.setTimer(100, t -> {
+            long start = System.nanoTime();
+            for (KafkaReadStream<String, String> readStream : streams) {
+                readStream.position(new org.apache.kafka.common.TopicPartition(TOPIC, 0)).onComplete(ctx.asyncAssertSuccess(pos -> {
+                    // idle consumers poll without blocking, so the task does not wait behind one second polls
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    ctx.assertTrue(elapsed < 500, "Elapsed " + elapsed);
+                    readStream.close().onComplete(ctx.asyncAssertSuccess(v2 -> done.countDown()));
+                }));
+            }
+        })));
+
+        done.handler(ar -> vertx.close());
+    }
+
+    @Test
+    public void shouldNotWakeUpEventLoopWhenIdle(TestContext ctx){
+        Vertx vertx = Vertx.vertx();
+
+        Async done = ctx.async();
+
+        MockConsumer<String, String> consumer = createMockConsumer();
+        KafkaReadStream<String, String> readStream = KafkaReadStream.create(vertx, consumer);
+        readStream.pollTimeout(Duration.ofMillis(1));
+        readStream.handler(r -> ctx.fail("Unexpected record"));
+        readStream.exceptionHandler(ctx::fail);
+
+        Set<org.apache.kafka.common.TopicPartition> partitions = new LinkedHashSet<>();
+        partitions.add(new org.apache.kafka.common.TopicPartition(TOPIC, 0));
+
+        readStream.assign(partitions).onComplete(ctx.asyncAssertSuccess(v -> {
+            vertx.setTimer(200, t -> {
+                // the mock consumer returns immediately, the worker polled many times without waking up the event loop
+                ctx.assertTrue(readStream.emptyPolls() > 10, "Empty polls " + readStream.emptyPolls());
+                // no record was fetched, the event loop asked for records once
+                ctx.assertTrue(readStream.refills() <= 2, "Refills " + readStream.refills());
+                readStream.close().onComplete(v2 -> vertx.close().onComplete(v3 -> done.complete()));
+            });
+        }));
+    }
+
 }
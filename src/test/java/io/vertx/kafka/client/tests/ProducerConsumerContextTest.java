@@ -99,6 +99,7 @@ public class ProducerConsumerContextTest extends KafkaClusterTestBase {
       @Override
       public void start() {
         consumer = KafkaReadStream.create(vertx, config);
+        consumer.localContextPerRecord(true);
         consumer.exceptionHandler(ctx::fail);
         Context thisConsumerCtx = context;
 
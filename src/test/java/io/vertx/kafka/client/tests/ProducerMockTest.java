@@ -18,13 +18,20 @@ package io.vertx.kafka.client.tests;
 
 import io.vertx.core.Context;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.kafka.client.common.KafkaClientOptions;
+import io.vertx.kafka.client.common.impl.VirtualThreads;
 import io.vertx.kafka.client.consumer.KafkaReadStream;
 import io.vertx.kafka.client.producer.KafkaProducer;
 import io.vertx.kafka.client.producer.KafkaProducerRecord;
 import io.vertx.kafka.client.producer.KafkaWriteStream;
+import io.vertx.kafka.client.producer.RecordSizeEstimator;
+import io.vertx.kafka.client.serialization.BufferSerializer;
+import io.vertx.kafka.client.serialization.JsonObjectSerializer;
 
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.MockProducer;
@@ -32,17 +39,24 @@ import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.awaitility.Awaitility;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Flow;
 import java.util.concurrent.Future;
+import java.util.concurrent.SubmissionPublisher;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertFalse;
 
@@ -70,6 +84,23 @@ public class ProducerMockTest {
     }
   }
 
+  /*
+    Records whether each record was handed to the producer from an event loop thread
+   */
+  private static class TestProducerThreads extends MockProducer<String, String> {
+    private final List<Boolean> eventLoopSends = Collections.synchronizedList(new ArrayList<>());
+
+    public TestProducerThreads() {
+      super(true, new StringSerializer(), new StringSerializer());
+    }
+
+    @Override
+    public synchronized Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+      eventLoopSends.add(Context.isOnEventLoopThread());
+      return super.send(record, callback);
+    }
+  }
+
   private static class SimulatedWriteException extends Exception {
 
   }
@@ -112,6 +143,51 @@ public class ProducerMockTest {
     testProducerDrain(ctx, new RuntimeException());
   }
 
+  @Test
+  public void testSubscriberBoundsInFlightRecords(TestContext ctx) {
+    TestProducer mock = new TestProducer();
+    KafkaWriteStream<String, String> producer = ProducerTest.producer(vertx, mock);
+    AtomicLong requested = new AtomicLong();
+    Flow.Subscriber<ProducerRecord<String, String>> subscriber = producer.toSubscriber(2);
+    subscriber.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+        requested.addAndGet(n);
+      }
+      @Override
+      public void cancel() {
+      }
+    });
+    ctx.assertEquals(2L, requested.get());
+    subscriber.onNext(new ProducerRecord<>("the_topic", 0, 0L, "key-0", "value-0"));
+    subscriber.onNext(new ProducerRecord<>("the_topic", 0, 0L, "key-1", "value-1"));
+    Awaitility.await().until(() -> mock.history().size() == 2);
+    // the producer has not acknowledged any record, nothing more is requested
+    ctx.assertEquals(2L, requested.get());
+    mock.assertCompleteNext();
+    Awaitility.await().until(() -> requested.get() == 3L);
+    subscriber.onNext(new ProducerRecord<>("the_topic", 0, 0L, "key-2", "value-2"));
+    Awaitility.await().until(() -> mock.history().size() == 3);
+    ctx.assertEquals(3L, requested.get());
+    mock.assertCompleteNext();
+    mock.assertCompleteNext();
+    Awaitility.await().until(() -> requested.get() == 5L);
+  }
+
+  @Test
+  public void testSubscriberReportsPublisherError(TestContext ctx) {
+    TestProducer mock = new TestProducer();
+    KafkaWriteStream<String, String> producer = ProducerTest.producer(vertx, mock);
+    Async async = ctx.async();
+    producer.exceptionHandler(err -> {
+      ctx.assertEquals("publisher failure", err.getMessage());
+      async.complete();
+    });
+    SubmissionPublisher<ProducerRecord<String, String>> publisher = new SubmissionPublisher<>();
+    publisher.subscribe(producer.toSubscriber(2));
+    publisher.closeExceptionally(new Exception("publisher failure"));
+  }
+
   private void testProducerDrain(TestContext ctx, RuntimeException failure) throws Exception {
     TestProducer mock = new TestProducer();
     KafkaWriteStream<String, String> producer = ProducerTest.producer(Vertx.vertx(), mock);
@@ -141,6 +217,121 @@ public class ProducerMockTest {
     assertFalse(producer.writeQueueFull());
   }
 
+  @Test
+  public void testWriteQueueBufferSize(TestContext ctx) {
+    MockProducer<String, Buffer> mock = new MockProducer<>(false, new StringSerializer(), new BufferSerializer());
+    KafkaWriteStream<String, Buffer> producer = ProducerTest.producer(vertx, mock);
+    producer.setWriteQueueMaxSize(10 * 1024);
+    Buffer value = Buffer.buffer(new byte[1024]);
+    for (int i = 0;i < 9;i++) {
+      producer.write(new ProducerRecord<>("the_topic", 0, null, value));
+      ctx.assertFalse(producer.writeQueueFull());
+    }
+    producer.write(new ProducerRecord<>("the_topic", 0, null, value));
+    ctx.assertTrue(producer.writeQueueFull());
+  }
+
+  @Test
+  public void testWriteQueueJsonSize(TestContext ctx) {
+    MockProducer<String, JsonObject> mock = new MockProducer<>(false, new StringSerializer(), new JsonObjectSerializer());
+    KafkaWriteStream<String, JsonObject> producer = ProducerTest.producer(vertx, mock);
+    JsonObject value = new JsonObject().put("the_key", "the_value").put("the_number", 3);
+    int size = value.encode().length();
+    producer.setWriteQueueMaxSize(size * 2);
+    producer.write(new ProducerRecord<>("the_topic", 0, null, value));
+    ctx.assertFalse(producer.writeQueueFull());
+    producer.write(new ProducerRecord<>("the_topic", 0, null, value));
+    ctx.assertTrue(producer.writeQueueFull());
+  }
+
+  @Test
+  public void testWriteQueueMaxRecords(TestContext ctx) {
+    TestProducer mock = new TestProducer();
+    KafkaWriteStream<String, String> producer = ProducerTest.producer(vertx, mock);
+    producer.setWriteQueueMaxRecords(4);
+    for (int i = 0;i < 4;i++) {
+      ctx.assertFalse(producer.writeQueueFull());
+      producer.write(new ProducerRecord<>("the_topic", 0, 0L, "abc", "def"));
+    }
+    ctx.assertTrue(producer.writeQueueFull());
+    Async async = ctx.async();
+    producer.drainHandler(v -> {
+      ctx.assertFalse(producer.writeQueueFull());
+      async.complete();
+    });
+    for (int i = 0;i < 3;i++) {
+      mock.assertCompleteNext();
+    }
+  }
+
+  @Test
+  public void testConcurrentSendersWriteQueue(TestContext ctx) throws Exception {
+    int numSenders = 16;
+    int numRecords = 500;
+    TestProducer mock = new TestProducer();
+    KafkaWriteStream<String, String> producer = ProducerTest.producer(vertx, mock);
+    producer.setWriteQueueMaxRecords(64);
+    List<Thread> senders = new ArrayList<>();
+    for (int i = 0;i < numSenders;i++) {
+      Thread sender = new Thread(() -> {
+        for (int j = 0;j < numRecords;j++) {
+          producer.write(new ProducerRecord<>("the_topic", 0, 0L, "abc", "def"));
+        }
+      });
+      senders.add(sender);
+      sender.start();
+    }
+    // complete the records concurrently with the senders
+    for (int i = 0;i < numSenders * numRecords;i++) {
+      mock.assertCompleteNext();
+    }
+    for (Thread sender : senders) {
+      sender.join();
+    }
+    Async async = ctx.async();
+    vertx.runOnContext(v -> {
+      // every record has been released, the queue must be back to empty
+      ctx.assertFalse(producer.writeQueueFull());
+      producer.drainHandler(v2 -> async.complete());
+    });
+  }
+
+  @Test
+  public void testSerializedSizeEstimator(TestContext ctx) {
+    RecordSizeEstimator.Serialized<String, String> estimator = RecordSizeEstimator.serialized(new StringSerializer(), new StringSerializer());
+    MockProducer<String, String> mock = new MockProducer<>(false, estimator.keySerializer(), estimator.valueSerializer());
+    KafkaWriteStream<String, String> producer = ProducerTest.producer(vertx, mock);
+    producer.sizeEstimator(estimator);
+    producer.setWriteQueueMaxSize(13);
+    producer.write(new ProducerRecord<>("the_topic", 0, 0L, "abc", "d\u00e9f"));
+    producer.write(new ProducerRecord<>("the_topic", 0, 0L, "abc", "d\u00e9f"));
+    // 3 bytes for the key and 4 bytes for the UTF-8 encoded value once serialized by the producer
+    Awaitility.await().until(producer::writeQueueFull);
+    ctx.assertEquals(2, mock.history().size());
+  }
+
+  @Test
+  public void testSendFailureReleasesWriteQueue(TestContext ctx) {
+    MockProducer<String, String> mock = new MockProducer<String, String>(false, new StringSerializer(), new StringSerializer()) {
+      @Override
+      public synchronized Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+        throw new IllegalStateException("closed");
+      }
+    };
+    KafkaWriteStream<String, String> producer = ProducerTest.producer(vertx, mock);
+    producer.setWriteQueueMaxRecords(1);
+    producer.write(new ProducerRecord<>("the_topic", 0, 0L, "abc", "def")).onComplete(ctx.asyncAssertFailure(err -> {
+      ctx.assertFalse(producer.writeQueueFull());
+      producer.sizeEstimator(record -> {
+        throw new IllegalArgumentException();
+      });
+      producer.write(new ProducerRecord<>("the_topic", 0, 0L, "abc", "def")).onComplete(ctx.asyncAssertFailure(err2 -> {
+        ctx.assertTrue(err2 instanceof IllegalArgumentException);
+        ctx.assertFalse(producer.writeQueueFull());
+      }));
+    }));
+  }
+
   @Test
   public void testProducerError(TestContext ctx) throws Exception {
     TestProducer mock = new TestProducer();
@@ -155,6 +346,196 @@ public class ProducerMockTest {
     mock.assertErrorNext(cause);
   }
 
+  @Test
+  public void testNonBlockingSend(TestContext ctx) {
+    TestProducerThreads mock = new TestProducerThreads();
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions().setNonBlockingSend(true));
+    Async async = ctx.async();
+    vertx.runOnContext(v -> {
+      producer.send(new ProducerRecord<>("the_topic", 0, 0L, "abc", "def")).onComplete(ctx.asyncAssertSuccess(md1 -> {
+        // the topic metadata is now cached by the producer
+        producer.send(new ProducerRecord<>("the_topic", 0, 0L, "abc", "ghi")).onComplete(ctx.asyncAssertSuccess(md2 -> {
+          ctx.assertEquals(2, mock.eventLoopSends.size());
+          ctx.assertFalse(mock.eventLoopSends.get(0));
+          ctx.assertTrue(mock.eventLoopSends.get(1));
+          async.complete();
+        }));
+      }));
+    });
+  }
+
+  @Test
+  public void testNonBlockingSendExpiresCachedTopics(TestContext ctx) {
+    TestProducerThreads mock = new TestProducerThreads();
+    Map<String, Object> config = new HashMap<>();
+    config.put(ProducerConfig.METADATA_MAX_IDLE_CONFIG, "100");
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions().setNonBlockingSend(true).setConfig(config));
+    Async async = ctx.async();
+    vertx.runOnContext(v -> {
+      producer.send(new ProducerRecord<>("the_topic", 0, 0L, "abc", "def")).onComplete(ctx.asyncAssertSuccess(md1 -> {
+        producer.send(new ProducerRecord<>("the_topic", 0, 0L, "abc", "ghi")).onComplete(ctx.asyncAssertSuccess(md2 -> {
+          vertx.setTimer(100, id -> {
+            // the producer might have dropped the idle topic metadata
+            producer.send(new ProducerRecord<>("the_topic", 0, 0L, "abc", "jkl")).onComplete(ctx.asyncAssertSuccess(md3 -> {
+              ctx.assertEquals(Arrays.asList(false, true, false), mock.eventLoopSends);
+              async.complete();
+            }));
+          });
+        }));
+      }));
+    });
+  }
+
+  @Test
+  public void testNonBlockingSendNearBufferMemory(TestContext ctx) {
+    TestProducerThreads mock = new TestProducerThreads();
+    Map<String, Object> config = new HashMap<>();
+    config.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 20);
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions().setNonBlockingSend(true).setConfig(config));
+    Async async = ctx.async();
+    vertx.runOnContext(v -> {
+      producer.send(new ProducerRecord<>("the_topic", 0, 0L, "abc", "def")).onComplete(ctx.asyncAssertSuccess(md1 -> {
+        producer.send(new ProducerRecord<>("the_topic", 0, 0L, "abc", "def")).onComplete(ctx.asyncAssertSuccess(md2 -> {
+          // the record alone uses more than half of the buffer memory
+          producer.send(new ProducerRecord<>("the_topic", 0, 0L, "abc", "defghijkl")).onComplete(ctx.asyncAssertSuccess(md3 -> {
+            ctx.assertEquals(Arrays.asList(false, true, false), mock.eventLoopSends);
+            async.complete();
+          }));
+        }));
+      }));
+    });
+  }
+
+  @Test
+  public void testVirtualThreads(TestContext ctx) {
+    KafkaClientOptions options = new KafkaClientOptions().setUseVirtualThreads(true);
+    if (!VirtualThreads.isSupported()) {
+      try {
+        KafkaWriteStream.create(vertx, new TestProducer(), options);
+        ctx.fail();
+      } catch (IllegalStateException expected) {
+      }
+      return;
+    }
+    List<String> threads = Collections.synchronizedList(new ArrayList<>());
+    MockProducer<String, String> mock = new MockProducer<String, String>(true, new StringSerializer(), new StringSerializer()) {
+      @Override
+      public synchronized Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+        threads.add(Thread.currentThread().getName());
+        return super.send(record, callback);
+      }
+    };
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, options);
+    Async async = ctx.async();
+    vertx.runOnContext(v -> {
+      for (int i = 0;i < 10;i++) {
+        producer.write(new ProducerRecord<>("the_topic", 0, 0L, "abc", "" + i));
+      }
+      producer.flush().onComplete(ctx.asyncAssertSuccess(v2 -> {
+        ctx.assertEquals(10, threads.size());
+        threads.forEach(name -> ctx.assertTrue(name.startsWith("vert.x-kafka-virtual-thread-"), name));
+        for (int i = 0;i < 10;i++) {
+          ctx.assertEquals("" + i, mock.history().get(i).value());
+        }
+        async.complete();
+      }));
+    });
+  }
+
+  @Test
+  public void testNonBlockingSendPreservesOrder(TestContext ctx) {
+    TestProducerThreads mock = new TestProducerThreads();
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions().setNonBlockingSend(true));
+    int num = 1000;
+    Async async = ctx.async(num);
+    vertx.runOnContext(v -> {
+      for (int i = 0;i < num;i++) {
+        producer.send(new ProducerRecord<>("the_topic", 0, 0L, "key-" + i, "value-" + i)).onComplete(ctx.asyncAssertSuccess(md -> async.countDown()));
+      }
+    });
+    async.handler(ar -> {
+      ctx.assertEquals(num, mock.history().size());
+      for (int i = 0;i < num;i++) {
+        ctx.assertEquals("value-" + i, mock.history().get(i).value());
+      }
+    });
+  }
+
+  @Test
+  public void testNonBlockingSendAfterQueuedCalls(TestContext ctx) {
+    List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    MockProducer<String, String> mock = new MockProducer<String, String>(true, new StringSerializer(), new StringSerializer()) {
+      @Override
+      public synchronized void beginTransaction() {
+        calls.add("begin");
+        super.beginTransaction();
+      }
+      @Override
+      public synchronized void flush() {
+        calls.add("flush");
+        super.flush();
+      }
+      @Override
+      public synchronized Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+        calls.add(record.value());
+        return super.send(record, callback);
+      }
+    };
+    KafkaWriteStream<String, String> producer = KafkaWriteStream.create(vertx, mock, new KafkaClientOptions().setNonBlockingSend(true));
+    Async async = ctx.async();
+    vertx.runOnContext(v -> {
+      producer.initTransactions().compose(v2 -> producer.partitionsFor("the_topic")).onComplete(ctx.asyncAssertSuccess(partitions -> {
+        // the topic metadata is cached, the send must still wait for the calls queued before it
+        calls.clear();
+        producer.beginTransaction();
+        producer.flush();
+        producer.send(new ProducerRecord<>("the_topic", 0, 0L, "abc", "def")).onComplete(ctx.asyncAssertSuccess(md -> {
+          ctx.assertEquals(Arrays.asList("begin", "flush", "def"), calls);
+          async.complete();
+        }));
+      }));
+    });
+  }
+
+  @Test
+  public void testSendBatch(TestContext ctx) {
+    MockProducer<String, String> mock = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+    KafkaProducer<String, String> producer = KafkaProducer.create(vertx, mock);
+    int num = 100;
+    List<KafkaProducerRecord<String, String>> records = new ArrayList<>();
+    for (int i = 0;i < num;i++) {
+      records.add(KafkaProducerRecord.create("the_topic", "key-" + i, "value-" + i, 0));
+    }
+    producer.sendBatch(records).onComplete(ctx.asyncAssertSuccess(metadata -> {
+      ctx.assertEquals(num, metadata.size());
+      for (int i = 0;i < num;i++) {
+        ctx.assertEquals("the_topic", metadata.get(i).getTopic());
+        ctx.assertEquals((long) i, metadata.get(i).getOffset());
+      }
+      ctx.assertEquals(num, mock.history().size());
+      ctx.assertFalse(producer.writeQueueFull());
+    }));
+  }
+
+  @Test
+  public void testSendBatchFailure(TestContext ctx) {
+    TestProducerWriteError mock = new TestProducerWriteError();
+    KafkaWriteStream<String, String> producer = ProducerTest.producer(vertx, mock);
+    List<ProducerRecord<String, String>> records = new ArrayList<>();
+    for (int i = 0;i < 10;i++) {
+      records.add(new ProducerRecord<>("the_topic", 0, 0L, "key-" + i, "value-" + i));
+    }
+    Async async = ctx.async(2);
+    producer.exceptionHandler(err -> {
+      ctx.assertTrue(err instanceof SimulatedWriteException);
+      async.countDown();
+    });
+    producer.sendBatch(records).onComplete(ctx.asyncAssertFailure(err -> {
+      ctx.assertTrue(err instanceof SimulatedWriteException);
+      async.countDown();
+    }));
+  }
+
 //  @Test
   public void testProducerConsumer(TestContext ctx) throws Exception {
 